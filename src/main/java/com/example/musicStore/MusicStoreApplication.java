@@ -2,11 +2,13 @@ package com.example.musicStore;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс приложения музыкального магазина, запускающий программу.
  */
 @SpringBootApplication
+@EnableScheduling
 public class MusicStoreApplication {
 
 	/**
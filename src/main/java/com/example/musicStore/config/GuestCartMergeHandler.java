@@ -0,0 +1,97 @@
+package com.example.musicStore.config;
+
+import com.example.musicStore.service.CartService;
+import com.example.musicStore.service.GuestCartService;
+import com.example.musicStore.service.UserService;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Обработчик успешного входа: переносит гостевую корзину из cookie в корзину пользователя,
+ * удаляет cookie и перенаправляет на главную страницу. Ошибка переноса не мешает входу.
+ */
+@Component
+public class GuestCartMergeHandler extends SimpleUrlAuthenticationSuccessHandler {
+
+    /**
+     * Сервис гостевой корзины.
+     */
+    @Autowired
+    private GuestCartService guestCartService;
+
+    /**
+     * Сервис для работы с корзиной.
+     */
+    @Autowired
+    private CartService cartService;
+
+    /**
+     * Сервис для работы с пользователями.
+     */
+    @Autowired
+    private UserService userService;
+
+    /**
+     * Конструктор, задающий страницу после входа.
+     */
+    public GuestCartMergeHandler() {
+        super("/index.html?success=true");
+        setAlwaysUseDefaultTargetUrl(true);
+    }
+
+    /**
+     * Переносит гостевую корзину и выполняет перенаправление.
+     *
+     * @param request текущий запрос
+     * @param response ответ
+     * @param authentication данные вошедшего пользователя
+     * @throws IOException если перенаправление не удалось
+     * @throws ServletException если перенаправление не удалось
+     */
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        String value = guestCartValue(request);
+        if (value != null) {
+            try {
+                Map<Long, Integer> guestCart = guestCartService.decode(value);
+                if (!guestCart.isEmpty()) {
+                    Long userId = userService.getUserIdByUsername(authentication.getName());
+                    cartService.mergeGuestCart(userId, guestCart);
+                }
+                response.addHeader(HttpHeaders.SET_COOKIE, guestCartService.cookie(Map.of()).toString());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+
+    /**
+     * Находит значение cookie гостевой корзины.
+     *
+     * @param request текущий запрос
+     * @return значение cookie или null
+     */
+    private static String guestCartValue(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return null;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (GuestCartService.COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -35,11 +35,14 @@ public class SecurityConfig {
      * Настраивает цепочку фильтров безопасности.
      *
      * @param http объект для конфигурации HTTP-безопасности
+     * @param guestCartMergeHandler обработчик входа, переносящий гостевую корзину в корзину пользователя;
+     *                              передаётся параметром, так как зависит от кодировщика паролей этой конфигурации
      * @return настроенная цепочка фильтров безопасности
      * @throws Exception при ошибках конфигурации
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   GuestCartMergeHandler guestCartMergeHandler) throws Exception {
         http
                 .addFilterBefore(reCaptchaLoginFilter, UsernamePasswordAuthenticationFilter.class)
                 .authorizeHttpRequests(authorize -> authorize
@@ -52,7 +55,7 @@ public class SecurityConfig {
                         .loginPage("/login.html")
                         .permitAll()
                         .loginProcessingUrl("/login")
-                        .defaultSuccessUrl("/index.html?success=true", true)
+                        .successHandler(guestCartMergeHandler)
                         .failureUrl("/login.html?error=true")
                 )
                 .logout(logout -> logout
@@ -1,15 +1,26 @@
 package com.example.musicStore.controller;
 
+import com.example.musicStore.model.CacheStats;
+import com.example.musicStore.model.CartSweepStats;
+import com.example.musicStore.model.ImportReport;
 import com.example.musicStore.model.Product;
 import com.example.musicStore.model.User;
+import com.example.musicStore.service.CartSweeper;
+import com.example.musicStore.service.ProductImportService;
 import com.example.musicStore.service.ProductService;
 import com.example.musicStore.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -32,6 +43,18 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    /**
+     * Сервис массового импорта товаров.
+     */
+    @Autowired
+    private ProductImportService productImportService;
+
+    /**
+     * Очистка заброшенных корзин.
+     */
+    @Autowired
+    private CartSweeper cartSweeper;
+
     /**
      * Возвращает список всех пользователей.
      *
@@ -43,6 +66,69 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Возвращает страницу пользователей с курсорной пагинацией в порядке идентификаторов.
+     *
+     * @param cursor курсор следующей страницы из предыдущего ответа
+     * @param size размер страницы
+     * @return {@link ResponseEntity} со страницей пользователей или ошибкой
+     */
+    @GetMapping("/users/cursor")
+    public ResponseEntity<?> getUsersByCursor(@RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(userService.findUsersAfter(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении пользователей: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает всех пользователей, записывая JSON-массив в ответ по мере чтения из базы данных.
+     * Формат совпадает с {@link #getAllUsers()}, но список не загружается в память целиком.
+     *
+     * @param response ответ, в который пишется JSON
+     * @throws IOException если запись ответа не удалась
+     */
+    @GetMapping("/users/stream")
+    public void streamAllUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try {
+            userService.streamAll(response.getOutputStream());
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Ошибка при получении пользователей: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает статистику кэшей каталога (попадания, промахи, вытеснения).
+     *
+     * @return {@link ResponseEntity} со списком статистики кэшей
+     */
+    @GetMapping("/cache/products")
+    public ResponseEntity<List<CacheStats>> getProductCacheStats() {
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
+    /**
+     * Возвращает статистику фоновой очистки заброшенных корзин.
+     *
+     * @return {@link ResponseEntity} со статистикой очистки
+     */
+    @GetMapping("/carts/sweeper")
+    public ResponseEntity<CartSweepStats> getCartSweepStats() {
+        return ResponseEntity.ok(cartSweeper.getStats());
+    }
+
     /**
      * Изменяет роль пользователя.
      *
@@ -104,6 +190,65 @@ public class AdminController {
         }
     }
 
+    /**
+     * Импортирует товары из JSON-массива в теле запроса.
+     * Тело читается потоково, товары сохраняются пачками; строки с ошибками пропускаются.
+     *
+     * @param request запрос с JSON-массивом товаров
+     * @return {@link ResponseEntity} с отчётом об импорте или ошибкой
+     */
+    @PostMapping(value = "/products/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importProductsJson(HttpServletRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            return ResponseEntity.ok(productImportService.importJson(in));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при импорте товаров: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Импортирует товары из CSV в теле запроса (UTF-8, первая строка — заголовок).
+     *
+     * @param request запрос с CSV
+     * @return {@link ResponseEntity} с отчётом об импорте или ошибкой
+     */
+    @PostMapping(value = "/products/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<?> importProductsCsv(HttpServletRequest request) {
+        try (InputStream in = request.getInputStream()) {
+            return ResponseEntity.ok(productImportService.importCsv(in));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при импорте товаров: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Импортирует товары из загруженного файла. Формат определяется по расширению или типу файла:
+     * .csv — CSV, иначе JSON-массив.
+     *
+     * @param file загруженный файл
+     * @return {@link ResponseEntity} с отчётом об импорте или ошибкой
+     */
+    @PostMapping(value = "/products/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importProductsFile(@RequestParam("file") MultipartFile file) {
+        String filename = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase();
+        boolean csv = filename.endsWith(".csv") || "text/csv".equals(file.getContentType());
+        try (InputStream in = file.getInputStream()) {
+            ImportReport report = csv ? productImportService.importCsv(in) : productImportService.importJson(in);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при импорте товаров: " + e.getMessage());
+        }
+    }
+
     /**
      * Обновляет существующий продукт.
      *
@@ -0,0 +1,72 @@
+package com.example.musicStore.controller;
+
+import com.example.musicStore.model.SalesBucket;
+import com.example.musicStore.model.SalesWindow;
+import com.example.musicStore.service.SalesAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Контроллер аналитики продаж по времени, доступной только пользователям с ролью ADMIN.
+ */
+@RestController
+@RequestMapping("/api/admin/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+    /**
+     * Сервис аналитики продаж.
+     */
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    /**
+     * Возвращает график продаж: количество заказов и выручку по последним интервалам, заканчивая текущим.
+     *
+     * @param resolution длина интервала: minute, hour или day
+     * @param points количество интервалов
+     * @return {@link ResponseEntity} со списком интервалов от старых к новым
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<?> getSales(@RequestParam(defaultValue = "minute") String resolution,
+                                      @RequestParam(defaultValue = "60") int points) {
+        try {
+            List<SalesBucket> series = salesAnalyticsService.getSeries(resolution, points);
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении аналитики продаж: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает продажи за скользящие окна 1h, 24h и 7d с самыми продаваемыми продуктами.
+     *
+     * @param top количество продуктов в каждом окне
+     * @return {@link ResponseEntity} со списком окон продаж
+     */
+    @GetMapping("/windows")
+    public ResponseEntity<?> getWindows(@RequestParam(defaultValue = "10") int top) {
+        try {
+            List<SalesWindow> windows = salesAnalyticsService.getWindows(top);
+            return ResponseEntity.ok(windows);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении аналитики продаж: " + e.getMessage());
+        }
+    }
+}
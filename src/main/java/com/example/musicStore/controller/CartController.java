@@ -1,17 +1,28 @@
 package com.example.musicStore.controller;
 
 import com.example.musicStore.model.Cart;
-import com.example.musicStore.model.Order;
+import com.example.musicStore.model.CartOperation;
+import com.example.musicStore.model.CartView;
+import com.example.musicStore.model.CheckoutStatus;
+import com.example.musicStore.model.OrderSummary;
 import com.example.musicStore.service.CartService;
+import com.example.musicStore.service.CheckoutQueue;
+import com.example.musicStore.service.IdempotencyService;
 import com.example.musicStore.service.OrderService;
 import com.example.musicStore.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
 /**
@@ -40,17 +51,29 @@ public class CartController {
     private UserService userService;
 
     /**
-     * Возвращает корзину текущего аутентифицированного пользователя.
+     * Очередь асинхронного оформления заказов.
+     */
+    @Autowired
+    private CheckoutQueue checkoutQueue;
+
+    /**
+     * Сервис ключей идемпотентности.
+     */
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    /**
+     * Возвращает корзину текущего аутентифицированного пользователя с суммами по строкам и итоговой суммой.
      *
      * @param authentication объект аутентификации, содержащий данные пользователя
      * @return корзина пользователя
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Cart> getCart(Authentication authentication) {
+    public ResponseEntity<CartView> getCart(Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
-            return ResponseEntity.ok(cartService.getCartByUser(userId));
+            return ResponseEntity.ok(cartService.getCartView(userId));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -61,21 +84,87 @@ public class CartController {
      * Добавляет продукт в корзину пользователя.
      *
      * @param productId идентификатор продукта
+     * @param quantity на сколько увеличить количество
+     * @param idempotencyKey ключ идемпотентности; повтор с тем же ключом не добавляет продукт ещё раз
      * @param authentication объект аутентификации, содержащий данные пользователя
-     * @return {@link ResponseEntity} с обновлённой корзиной или ошибкой
+     * @param request текущий запрос
+     * @return {@link ResponseEntity} с новым количеством продукта в корзине или ошибкой
      */
     @PostMapping("/add/{productId}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> addToCart(@PathVariable Long productId, Authentication authentication) {
-        try {
-            Long userId = getUserIdFromAuthentication(authentication);
-            Cart cart = cartService.addProductToCart(userId, productId);
-            return ResponseEntity.ok(cart);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Error adding product to cart: " + e.getMessage());
-        }
+    public ResponseEntity<?> addToCart(@PathVariable Long productId,
+                                       @RequestParam(defaultValue = "1") int quantity,
+                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                       Authentication authentication, HttpServletRequest request) {
+        return idempotencyService.execute(authentication.getName(), idempotencyKey, request, null, () -> {
+            try {
+                Long userId = getUserIdFromAuthentication(authentication);
+                return ResponseEntity.ok(cartService.addProductToCart(userId, productId, quantity));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error adding product to cart: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Устанавливает точное количество продукта в корзине пользователя; количество 0 удаляет продукт из корзины.
+     *
+     * @param productId идентификатор продукта
+     * @param quantity новое количество
+     * @param idempotencyKey ключ идемпотентности; повтор с тем же ключом получает сохранённый ответ
+     * @param authentication объект аутентификации, содержащий данные пользователя
+     * @param request текущий запрос
+     * @return {@link ResponseEntity} с установленным количеством продукта или ошибкой
+     */
+    @PutMapping("/items/{productId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> setQuantity(@PathVariable Long productId, @RequestParam int quantity,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                         Authentication authentication, HttpServletRequest request) {
+        return idempotencyService.execute(authentication.getName(), idempotencyKey, request, null, () -> {
+            try {
+                Long userId = getUserIdFromAuthentication(authentication);
+                return ResponseEntity.ok(cartService.setProductQuantity(userId, productId, quantity));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Ошибка при изменении количества товара: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Применяет к корзине пользователя список операций add, set и remove одним запросом.
+     *
+     * @param operations операции в порядке применения
+     * @param idempotencyKey ключ идемпотентности; повтор с тем же ключом не применяет операции ещё раз
+     * @param authentication объект аутентификации, содержащий данные пользователя
+     * @param request текущий запрос
+     * @return {@link ResponseEntity} с корзиной после изменения в формате {@link #getCart(Authentication)} или ошибкой
+     */
+    @PatchMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> updateCart(@RequestBody List<CartOperation> operations,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                        Authentication authentication, HttpServletRequest request) {
+        return idempotencyService.execute(authentication.getName(), idempotencyKey, request, operations, () -> {
+            try {
+                Long userId = getUserIdFromAuthentication(authentication);
+                return ResponseEntity.ok(cartService.applyOperations(userId, operations));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Ошибка при изменении корзины: " + e.getMessage());
+            }
+        });
     }
 
     /**
@@ -118,39 +207,112 @@ public class CartController {
     }
 
     /**
-     * Оформляет заказ на основе корзины пользователя.
+     * Оформляет заказ на основе корзины пользователя. При включённом асинхронном оформлении заявка
+     * ставится в очередь и сразу возвращается её состояние со статусом 202 и ссылкой для опроса
+     * в заголовке Location; если очередь заполнена, возвращается 503 с заголовком Retry-After.
+     * Повтор с тем же ключом идемпотентности получает сохранённый ответ и не создаёт второй заказ.
      *
+     * @param idempotencyKey ключ идемпотентности
      * @param authentication объект аутентификации, содержащий данные пользователя
-     * @return созданный заказ
+     * @param request текущий запрос
+     * @return созданный заказ или состояние заявки на оформление
      */
     @PostMapping("/checkout")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<Order> checkout(Authentication authentication) {
+    public ResponseEntity<?> checkout(@RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                      Authentication authentication, HttpServletRequest request) {
+        return idempotencyService.execute(authentication.getName(), idempotencyKey, request, null, () -> {
+            try {
+                Long userId = getUserIdFromAuthentication(authentication);
+                if (!checkoutQueue.isEnabled()) {
+                    return ResponseEntity.ok(orderService.createOrder(userId, idempotencyKey));
+                }
+                CheckoutStatus status = checkoutQueue.submit(userId, idempotencyKey);
+                if (status == null) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, "5")
+                            .body("Слишком много заказов, повторите попытку позже");
+                }
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/cart/checkout/" + status.getReference()))
+                        .body(status);
+            } catch (Exception e) {
+                e.printStackTrace();
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            }
+        });
+    }
+
+    /**
+     * Возвращает состояние заявки на асинхронное оформление заказа.
+     *
+     * @param reference ссылка на заявку
+     * @param authentication объект аутентификации, содержащий данные пользователя
+     * @return {@link ResponseEntity} с состоянием заявки или 404, если заявка не найдена
+     */
+    @GetMapping("/checkout/{reference}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CheckoutStatus> getCheckoutStatus(@PathVariable String reference,
+                                                            Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
-            return ResponseEntity.ok(orderService.createOrder(userId));
+            CheckoutStatus status = checkoutQueue.getStatus(userId, reference);
+            return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
-     * Возвращает историю заказов текущего пользователя.
+     * Возвращает страницу истории заказов текущего пользователя с курсорной пагинацией, начиная с самых новых.
+     * Заказы отдаются в кратком представлении {@link OrderSummary}: без данных пользователя, с позициями
+     * и краткими сведениями о продуктах.
      *
+     * @param cursor курсор следующей страницы из предыдущего ответа
+     * @param size размер страницы
      * @param authentication объект аутентификации, содержащий данные пользователя
-     * @return список заказов пользователя
+     * @return {@link ResponseEntity} со страницей заказов или ошибкой
      */
-    @GetMapping("/orders")
+    @GetMapping({"/orders", "/orders/cursor"})
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<Order>> getOrders(Authentication authentication) {
+    public ResponseEntity<?> getOrders(@RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "20") int size,
+                                       Authentication authentication) {
         try {
             Long userId = getUserIdFromAuthentication(authentication);
-            List<Order> orders = orderService.getOrdersByUser(userId);
-            return ResponseEntity.ok(orders);
+            return ResponseEntity.ok(orderService.getOrdersByUserAfter(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении заказов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает заказы текущего пользователя, записывая JSON-массив в ответ по мере чтения из базы данных.
+     * Отдаёт все заказы целиком без пагинации, но список не загружается в память целиком.
+     *
+     * @param authentication объект аутентификации, содержащий данные пользователя
+     * @param response ответ, в который пишется JSON
+     * @throws IOException если запись ответа не удалась
+     */
+    @GetMapping("/orders/stream")
+    @PreAuthorize("isAuthenticated()")
+    public void streamOrders(Authentication authentication, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try {
+            Long userId = getUserIdFromAuthentication(authentication);
+            orderService.streamOrdersByUser(userId, response.getOutputStream());
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            e.printStackTrace();
+            response.reset();
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
         }
     }
 
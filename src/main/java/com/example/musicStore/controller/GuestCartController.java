@@ -0,0 +1,84 @@
+package com.example.musicStore.controller;
+
+import com.example.musicStore.model.CartItemQuantity;
+import com.example.musicStore.model.CartView;
+import com.example.musicStore.service.GuestCartService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Контроллер гостевой корзины неавторизованных посетителей.
+ * Корзина хранится в подписанной cookie, поэтому запросы не обращаются к базе данных за корзиной
+ * и ничего в неё не пишут; при входе корзина переносится в постоянную корзину пользователя.
+ */
+@RestController
+@RequestMapping("/api/public/guest-cart")
+public class GuestCartController {
+
+    /**
+     * Сервис гостевой корзины.
+     */
+    @Autowired
+    private GuestCartService guestCartService;
+
+    /**
+     * Возвращает гостевую корзину.
+     *
+     * @param cookie значение cookie гостевой корзины
+     * @return корзина с суммами в формате корзины пользователя
+     */
+    @GetMapping
+    public ResponseEntity<CartView> getCart(@CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String cookie) {
+        return ResponseEntity.ok(guestCartService.view(guestCartService.decode(cookie)));
+    }
+
+    /**
+     * Добавляет продукт в гостевую корзину.
+     *
+     * @param productId идентификатор продукта
+     * @param quantity на сколько увеличить количество
+     * @param cookie значение cookie гостевой корзины
+     * @return {@link ResponseEntity} с новым количеством продукта и обновлённой cookie или ошибкой
+     */
+    @PostMapping("/add/{productId}")
+    public ResponseEntity<?> addToCart(@PathVariable Long productId,
+                                       @RequestParam(defaultValue = "1") int quantity,
+                                       @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String cookie) {
+        try {
+            Map<Long, Integer> cart = guestCartService.decode(cookie);
+            CartItemQuantity result = guestCartService.add(cart, productId, quantity);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(cart).toString())
+                    .body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Устанавливает точное количество продукта в гостевой корзине; количество 0 удаляет продукт.
+     *
+     * @param productId идентификатор продукта
+     * @param quantity новое количество
+     * @param cookie значение cookie гостевой корзины
+     * @return {@link ResponseEntity} с установленным количеством и обновлённой cookie или ошибкой
+     */
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<?> setQuantity(@PathVariable Long productId, @RequestParam int quantity,
+                                         @CookieValue(name = GuestCartService.COOKIE_NAME, required = false) String cookie) {
+        try {
+            Map<Long, Integer> cart = guestCartService.decode(cookie);
+            CartItemQuantity result = guestCartService.set(cart, productId, quantity);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(cart).toString())
+                    .body(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
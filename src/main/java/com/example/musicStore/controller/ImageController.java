@@ -0,0 +1,183 @@
+package com.example.musicStore.controller;
+
+import com.example.musicStore.model.ImageVariants;
+import com.example.musicStore.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контроллер для отдачи уменьшенных копий изображений продуктов.
+ * Файлы отдаются без копирования через память приложения: через sendfile контейнера Tomcat,
+ * а если он недоступен — через {@link FileChannel#transferTo}. Поддерживается один диапазон Range.
+ */
+@RestController
+@RequestMapping(ImageVariants.URL_PREFIX)
+public class ImageController {
+
+    /**
+     * Атрибут запроса, которым Tomcat сообщает о поддержке sendfile.
+     */
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Атрибут запроса с абсолютным путём к файлу, который Tomcat отдаёт через sendfile.
+     */
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * Атрибут запроса со смещением первого отдаваемого байта файла.
+     */
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    /**
+     * Атрибут запроса со смещением после последнего отдаваемого байта файла.
+     */
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Политика кэширования копий: URL содержит версию исходника, поэтому ответ неизменяем.
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
+    /**
+     * Сервис уменьшенных копий изображений.
+     */
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    /**
+     * Отдаёт уменьшенную копию изображения.
+     *
+     * @param width ширина копии
+     * @param version версия исходного изображения
+     * @param name имя исходного файла
+     * @param request текущий запрос
+     * @param response ответ, в который пишется файл
+     * @throws IOException если запись ответа не удалась
+     */
+    @GetMapping("/{width}/{version}/{name}")
+    public void getImage(@PathVariable int width, @PathVariable String version, @PathVariable String name,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageVariantService.VariantFile variant;
+        try {
+            variant = imageVariantService.getVariant(width, version, name);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Ошибка при обработке изображения");
+            return;
+        }
+        if (variant == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Изображение не найдено");
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, variant.getEtag());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (variant.getEtag().equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long length = Files.size(variant.getPath());
+        long start = 0;
+        long end = length;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(variant.getEtag()))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentType(variant.getContentType());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, variant.getPath().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(variant.getPath(), StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                position += file.transferTo(position, end - position, target);
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Разбирает заголовок Range с единственным диапазоном байтов.
+     *
+     * @param header значение заголовка Range
+     * @param length размер файла
+     * @return пара [начало, конец) для выполнимого диапазона; пустой массив, если заголовок
+     *         не поддерживается и нужно отдать файл целиком; null, если диапазон невыполним
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return null;
+                }
+                return new long[]{Math.max(0, length - suffix), length};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length : Math.min(length, Long.parseLong(last) + 1);
+            if (start >= length || end <= start) {
+                return null;
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
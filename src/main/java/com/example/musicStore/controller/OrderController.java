@@ -1,15 +1,26 @@
 package com.example.musicStore.controller;
 
+import com.example.musicStore.model.PageResponse;
+import com.example.musicStore.model.UserOrderMetrics;
+import com.example.musicStore.service.OrderExportService;
 import com.example.musicStore.service.OrderService;
+import com.example.musicStore.service.UserOrderStatsService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 
 /**
  * Контроллер для операций с заказами, доступных только пользователям с ролью ADMIN.
@@ -26,24 +37,144 @@ public class OrderController {
     private OrderService orderService;
 
     /**
-     * Возвращает метрики о количестве заказов по пользователям.
+     * Сервис накопленных итогов заказов по пользователям.
+     */
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
+
+    /**
+     * Сервис выгрузки заказов.
+     */
+    @Autowired
+    private OrderExportService orderExportService;
+
+    /**
+     * Возвращает метрики заказов по пользователям, начиная с пользователей с наибольшим количеством заказов.
      *
-     * @return {@link ResponseEntity} со списком метрик (имя пользователя и количество заказов)
+     * @param from первый день периода (yyyy-MM-dd), по умолчанию без ограничения
+     * @param to последний день периода включительно (yyyy-MM-dd), по умолчанию без ограничения
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы; первая страница — топ-size пользователей
+     * @return {@link ResponseEntity} со страницей метрик (имя пользователя, количество и общая стоимость заказов)
      */
     @GetMapping("/metrics/orders-by-user")
-    public ResponseEntity<List<Map<String, Object>>> getOrdersCountByUser() {
-        List<Map<String, Object>> metrics = orderService.getOrdersCountByUser();
-        return ResponseEntity.ok(metrics);
+    public ResponseEntity<?> getOrdersCountByUser(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            PageResponse<UserOrderMetrics> metrics = orderService.getOrdersCountByUser(from, to, page, size);
+            return ResponseEntity.ok(metrics);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении метрик: " + e.getMessage());
+        }
     }
 
     /**
-     * Возвращает метрики об общей стоимости заказов по пользователям.
+     * Возвращает метрики заказов по пользователям, начиная с пользователей с наибольшей общей стоимостью заказов.
      *
-     * @return {@link ResponseEntity} со списком метрик (имя пользователя и общая стоимость)
+     * @param from первый день периода (yyyy-MM-dd), по умолчанию без ограничения
+     * @param to последний день периода включительно (yyyy-MM-dd), по умолчанию без ограничения
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы; первая страница — топ-size пользователей
+     * @return {@link ResponseEntity} со страницей метрик (имя пользователя, количество и общая стоимость заказов)
      */
     @GetMapping("/metrics/total-price-by-user")
-    public ResponseEntity<List<Map<String, Object>>> getTotalPriceByUser() {
-        List<Map<String, Object>> metrics = orderService.getTotalPriceByUser();
-        return ResponseEntity.ok(metrics);
+    public ResponseEntity<?> getTotalPriceByUser(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            PageResponse<UserOrderMetrics> metrics = orderService.getTotalPriceByUser(from, to, page, size);
+            return ResponseEntity.ok(metrics);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении метрик: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Сверяет накопленные итоги заказов по пользователям с таблицей заказов, не дожидаясь расписания.
+     *
+     * @return {@link ResponseEntity} с количеством исправленных строк итогов
+     */
+    @PostMapping("/metrics/rebuild")
+    public ResponseEntity<?> rebuildMetrics() {
+        try {
+            return ResponseEntity.ok(userOrderStatsService.rebuild());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при пересчёте метрик: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выгружает заказы за период с пользователями, позициями и суммами в CSV или NDJSON.
+     * Ответ пишется по мере чтения заказов из базы данных, поэтому размер выгрузки не ограничен памятью.
+     * Если одновременно выполняется максимальное количество выгрузок, возвращается 429.
+     *
+     * @param from первый день периода (yyyy-MM-dd), по умолчанию без ограничения
+     * @param to последний день периода включительно (yyyy-MM-dd), по умолчанию без ограничения
+     * @param format формат выгрузки: csv или ndjson
+     * @param response ответ, в который пишется выгрузка
+     * @throws IOException если запись ответа не удалась
+     */
+    @GetMapping("/export")
+    public void exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        try {
+            OrderExportService.Format exportFormat = OrderExportService.Format.of(format);
+            response.setContentType(exportFormat.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders-"
+                    + (from == null ? "start" : from) + "-" + (to == null ? "now" : to) + "." + exportFormat.getExtension() + "\"");
+            orderExportService.export(from, to, exportFormat, response.getOutputStream());
+        } catch (OrderExportService.ExportLimitExceededException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "60");
+            writeError(response, HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            writeError(response, HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            e.printStackTrace();
+            response.reset();
+            writeError(response, HttpStatus.INTERNAL_SERVER_ERROR, "Ошибка при выгрузке заказов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Записывает в сброшенный ответ текст ошибки.
+     *
+     * @param response ответ
+     * @param status код ответа
+     * @param message текст ошибки
+     * @throws IOException если запись ответа не удалась
+     */
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("text/plain; charset=UTF-8");
+        response.getOutputStream().write(message.getBytes(StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,30 @@
 package com.example.musicStore.controller;
 
+import com.example.musicStore.model.PageResponse;
 import com.example.musicStore.model.Product;
+import com.example.musicStore.model.ProductFacets;
+import com.example.musicStore.model.ProductFilter;
+import com.example.musicStore.service.CatalogVersion;
 import com.example.musicStore.service.ProductService;
 import com.example.musicStore.repository.ProductRepository;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 
 /**
  * Контроллер для управления операциями с продуктами, доступными публично.
+ * Ответы на GET-запросы помечаются ETag по версии каталога; запрос с совпадающим If-None-Match
+ * получает 304 Not Modified без обращения к базе данных.
  */
 @RestController
 @RequestMapping("/api/public/products")
@@ -24,30 +36,193 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    /**
+     * Версия каталога для построения ETag.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * Политика кэширования ответов каталога: хранить можно, но перед использованием нужно перепроверить ETag.
+     */
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+
     /**
      * Возвращает список всех продуктов.
      *
-     * @return список продуктов
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} со списком продуктов или 304 Not Modified
      */
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return cached(etag, productService.getAllProducts());
+    }
+
+    /**
+     * Возвращает все продукты, записывая JSON-массив в ответ по мере чтения из базы данных.
+     * Формат совпадает с {@link #getAllProducts(WebRequest)}, но каталог не загружается в память целиком.
+     *
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @param response ответ, в который пишется JSON
+     * @throws IOException если запись ответа не удалась
+     */
+    @GetMapping("/stream")
+    public void streamAllProducts(WebRequest request, HttpServletResponse response) throws IOException {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CATALOG_CACHE_CONTROL.getHeaderValue());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try {
+            productService.streamAllProducts(response.getOutputStream());
+        } catch (RuntimeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.reset();
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Ошибка при получении каталога: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает страницу каталога с фильтрацией и сортировкой на стороне сервера.
+     *
+     * @param category категория продукта
+     * @param brand бренд продукта
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param inStock признак наличия на складе
+     * @param q строка поиска по названию, бренду и описанию
+     * @param sort код сортировки (price-asc, price-desc, name-asc, name-desc)
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} со страницей продуктов, 304 Not Modified или ошибкой
+     */
+    @GetMapping("/query")
+    public ResponseEntity<?> queryProducts(@RequestParam(required = false) String category,
+                                           @RequestParam(required = false) String brand,
+                                           @RequestParam(required = false) Double minPrice,
+                                           @RequestParam(required = false) Double maxPrice,
+                                           @RequestParam(required = false) Boolean inStock,
+                                           @RequestParam(required = false) String q,
+                                           @RequestParam(required = false) String sort,
+                                           @RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        try {
+            ProductFilter filter = new ProductFilter(category, brand, minPrice, maxPrice, inStock, q);
+            PageResponse<Product> result = productService.findProducts(filter, sort, page, size);
+            return cached(etag, result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении каталога: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает страницу каталога с курсорной пагинацией: следующая страница запрашивается
+     * по значению nextCursor из предыдущего ответа.
+     *
+     * @param category категория продукта
+     * @param brand бренд продукта
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param inStock признак наличия на складе
+     * @param q строка поиска по названию, бренду и описанию
+     * @param sort код сортировки (price-asc, price-desc, name-asc, name-desc)
+     * @param cursor курсор следующей страницы
+     * @param size размер страницы
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} со страницей продуктов, 304 Not Modified или ошибкой
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> queryProductsByCursor(@RequestParam(required = false) String category,
+                                                   @RequestParam(required = false) String brand,
+                                                   @RequestParam(required = false) Double minPrice,
+                                                   @RequestParam(required = false) Double maxPrice,
+                                                   @RequestParam(required = false) Boolean inStock,
+                                                   @RequestParam(required = false) String q,
+                                                   @RequestParam(required = false) String sort,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int size,
+                                                   WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        try {
+            ProductFilter filter = new ProductFilter(category, brand, minPrice, maxPrice, inStock, q);
+            return cached(etag, productService.findProductsAfter(filter, sort, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при получении каталога: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Выполняет полнотекстовый поиск по каталогу с ранжированием по релевантности.
+     *
+     * @param q строка поиска
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} со страницей найденных продуктов, 304 Not Modified или ошибкой
+     */
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(@RequestParam String q,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size,
+                                            WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        try {
+            return cached(etag, productService.searchProducts(q, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при поиске товаров: " + e.getMessage());
+        }
     }
 
     /**
      * Возвращает продукт по его идентификатору.
      *
      * @param id идентификатор продукта
-     * @return {@link ResponseEntity} с продуктом или ошибкой
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} с продуктом, 304 Not Modified или ошибкой
      */
     @GetMapping("/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
         try {
             Product product = productService.getProductById(id);
             if (product == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Товар не найден");
             }
-            return ResponseEntity.ok(product);
+            return cached(etag, product);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Ошибка при получении товара: " + e.getMessage());
@@ -57,21 +232,72 @@ public class ProductController {
     /**
      * Возвращает список всех уникальных категорий продуктов.
      *
-     * @return множество категорий
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} с множеством категорий или 304 Not Modified
      */
     @GetMapping("/categories")
-    public Set<String> getAllCategories() {
-        return productService.getAllCategories();
+    public ResponseEntity<Set<String>> getAllCategories(WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return cached(etag, productService.getAllCategories());
     }
 
     /**
      * Возвращает список всех уникальных брендов продуктов.
      *
-     * @return множество брендов
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} с множеством брендов или 304 Not Modified
      */
     @GetMapping("/brands")
-    public Set<String> getAllBrands() {
-        return productService.getAllBrands();
+    public ResponseEntity<Set<String>> getAllBrands(WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return cached(etag, productService.getAllBrands());
+    }
+
+    /**
+     * Возвращает фасеты каталога: категории и бренды с количеством продуктов и количеством продуктов в наличии.
+     *
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} с фасетами каталога или 304 Not Modified
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return cached(etag, productService.getFacets());
+    }
+
+    /**
+     * Возвращает гистограмму цен для ценового фильтра: границы диапазонов с количеством продуктов,
+     * минимальную и максимальную цену и количество продуктов в выбранном диапазоне.
+     *
+     * @param category категория или null для всего каталога
+     * @param minPrice нижняя граница диапазона
+     * @param maxPrice верхняя граница диапазона
+     * @param request текущий запрос (для проверки If-None-Match)
+     * @return {@link ResponseEntity} с гистограммой, 304 Not Modified или ошибкой
+     */
+    @GetMapping("/price-histogram")
+    public ResponseEntity<?> getPriceHistogram(@RequestParam(required = false) String category,
+                                               @RequestParam(required = false) Double minPrice,
+                                               @RequestParam(required = false) Double maxPrice,
+                                               WebRequest request) {
+        String etag = catalogVersion.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        try {
+            return cached(etag, productService.getPriceHistogram(category, minPrice, maxPrice));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
     }
 
     /**
@@ -84,4 +310,33 @@ public class ProductController {
     public Product createProduct(@RequestBody Product product) {
         return productService.saveProduct(product);
     }
+
+    /**
+     * Формирует успешный ответ с ETag версии каталога и политикой кэширования.
+     *
+     * @param etag ETag версии каталога, прочитанный до загрузки данных
+     * @param body тело ответа
+     * @param <T> тип тела ответа
+     * @return ответ 200 OK
+     */
+    private static <T> ResponseEntity<T> cached(String etag, T body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .body(body);
+    }
+
+    /**
+     * Формирует ответ 304 Not Modified для неизменившегося каталога.
+     *
+     * @param etag ETag версии каталога
+     * @param <T> тип тела ответа
+     * @return ответ 304 Not Modified без тела
+     */
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CATALOG_CACHE_CONTROL)
+                .build();
+    }
 }
\ No newline at end of file
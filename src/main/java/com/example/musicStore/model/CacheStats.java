@@ -0,0 +1,93 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий снимок статистики кэша в памяти процесса.
+ */
+public class CacheStats {
+
+    /**
+     * Имя кэша.
+     */
+    private final String name;
+
+    /**
+     * Текущее количество записей.
+     */
+    private final int size;
+
+    /**
+     * Максимальное количество записей.
+     */
+    private final int maxSize;
+
+    /**
+     * Количество попаданий.
+     */
+    private final long hits;
+
+    /**
+     * Количество промахов.
+     */
+    private final long misses;
+
+    /**
+     * Количество вытеснений по размеру и по истечении срока жизни.
+     */
+    private final long evictions;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param name имя кэша
+     * @param size текущее количество записей
+     * @param maxSize максимальное количество записей
+     * @param hits количество попаданий
+     * @param misses количество промахов
+     * @param evictions количество вытеснений
+     */
+    public CacheStats(String name, int size, int maxSize, long hits, long misses, long evictions) {
+        this.name = name;
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Геттеры для полей класса {@link CacheStats}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Возвращает долю попаданий среди всех обращений.
+     *
+     * @return доля попаданий от 0 до 1
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Data;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,7 +37,8 @@ public class Cart {
     @JoinTable(
             name = "cart_products",
             joinColumns = @JoinColumn(name = "cart_id"),
-            inverseJoinColumns = @JoinColumn(name = "product_id")
+            inverseJoinColumns = @JoinColumn(name = "product_id"),
+            indexes = @Index(name = "idx_cart_products_cart", columnList = "cart_id")
     )
     private List<Product> products = new ArrayList<>();
 
@@ -47,6 +49,21 @@ public class Cart {
     @JsonManagedReference
     private List<CartItem> items = new ArrayList<>();
 
+    /**
+     * Версия корзины для оптимистической блокировки.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    /**
+     * Время создания корзины; заполняется базой данных. Вместе со временем изменения элементов
+     * определяет давность корзины для очистки.
+     */
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "timestamp default now()")
+    private LocalDateTime createdAt;
+
     /**
      * Конструктор по умолчанию.
      */
@@ -89,6 +106,18 @@ public class Cart {
         this.products = products;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
     /**
      * Добавляет продукт в корзину, увеличивая количество, если продукт уже присутствует.
      *
@@ -4,12 +4,16 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 /**
  * Класс промежуточной сущности, представляющий элемент корзины, связывающий корзину и продукт с указанием количества.
+ * Каждый продукт встречается в корзине не более одного раза.
  */
 @Entity
 @Data
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_cart_product",
+        columnNames = {"cart_id", "product_id"}))
 public class CartItem {
 
     /**
@@ -39,6 +43,22 @@ public class CartItem {
      */
     private int quantity;
 
+    /**
+     * Версия элемента корзины для оптимистической блокировки; увеличивается и при изменении количества
+     * операторами INSERT ... ON CONFLICT.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    /**
+     * Время последнего изменения количества; заполняется базой данных при вставке
+     * и операторами INSERT ... ON CONFLICT при изменении.
+     */
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "timestamp default now()")
+    private LocalDateTime updatedAt;
+
     /**
      * Конструктор по умолчанию.
      */
@@ -0,0 +1,53 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий количество одного товара в корзине после его изменения.
+ */
+public class CartItemQuantity {
+
+    /**
+     * Идентификатор продукта.
+     */
+    private Long productId;
+
+    /**
+     * Количество единиц продукта в корзине; 0, если товар удалён из корзины.
+     */
+    private int quantity;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public CartItemQuantity() {
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param productId идентификатор продукта
+     * @param quantity количество единиц продукта
+     */
+    public CartItemQuantity(Long productId, int quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link CartItemQuantity}.
+     */
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий строку корзины: продукт, количество и сумму по строке.
+ */
+public class CartLine {
+
+    /**
+     * Краткие сведения о продукте.
+     */
+    private final ProductSummary product;
+
+    /**
+     * Количество единиц продукта.
+     */
+    private final int quantity;
+
+    /**
+     * Сумма по строке: цена, умноженная на количество.
+     */
+    private final double lineTotal;
+
+    /**
+     * Конструктор для проекции запроса JPQL.
+     *
+     * @param productId идентификатор продукта
+     * @param name название продукта
+     * @param image путь к изображению
+     * @param price цена продукта
+     * @param quantity количество единиц продукта
+     */
+    public CartLine(Long productId, String name, String image, double price, int quantity) {
+        this(new ProductSummary(productId, name, image, price), quantity);
+    }
+
+    /**
+     * Конструктор с указанием продукта и количества.
+     *
+     * @param product краткие сведения о продукте
+     * @param quantity количество единиц продукта
+     */
+    public CartLine(ProductSummary product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+        this.lineTotal = product.getPrice() * quantity;
+    }
+
+    /**
+     * Геттеры для полей класса {@link CartLine}.
+     */
+    public ProductSummary getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getLineTotal() {
+        return lineTotal;
+    }
+}
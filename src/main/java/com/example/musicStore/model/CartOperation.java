@@ -0,0 +1,70 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий одну операцию пакетного изменения корзины.
+ * Поддерживаются операции "add" (увеличить количество), "set" (установить количество)
+ * и "remove" (удалить продукт из корзины).
+ */
+public class CartOperation {
+
+    /**
+     * Вид операции: add, set или remove.
+     */
+    private String op;
+
+    /**
+     * Идентификатор продукта.
+     */
+    private Long productId;
+
+    /**
+     * Количество: для add — на сколько увеличить (по умолчанию 1), для set — новое значение.
+     */
+    private Integer quantity;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public CartOperation() {
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param op вид операции
+     * @param productId идентификатор продукта
+     * @param quantity количество
+     */
+    public CartOperation(String op, Long productId, Integer quantity) {
+        this.op = op;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link CartOperation}.
+     */
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
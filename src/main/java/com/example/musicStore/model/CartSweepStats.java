@@ -0,0 +1,95 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий снимок статистики очистки заброшенных корзин.
+ */
+public class CartSweepStats {
+
+    /**
+     * Количество завершённых проходов очистки.
+     */
+    private final long runs;
+
+    /**
+     * Количество обработанных порций корзин.
+     */
+    private final long chunks;
+
+    /**
+     * Количество удалённых корзин.
+     */
+    private final long cartsDeleted;
+
+    /**
+     * Количество удалённых элементов корзин.
+     */
+    private final long itemsDeleted;
+
+    /**
+     * Количество удалённых строк устаревшей таблицы cart_products.
+     */
+    private final long legacyRowsDeleted;
+
+    /**
+     * Суммарное время очистки в миллисекундах, включая паузы между порциями.
+     */
+    private final long totalMillis;
+
+    /**
+     * Время последнего прохода в миллисекундах.
+     */
+    private final long lastRunMillis;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param runs количество проходов
+     * @param chunks количество порций
+     * @param cartsDeleted количество удалённых корзин
+     * @param itemsDeleted количество удалённых элементов корзин
+     * @param legacyRowsDeleted количество удалённых строк cart_products
+     * @param totalMillis суммарное время очистки
+     * @param lastRunMillis время последнего прохода
+     */
+    public CartSweepStats(long runs, long chunks, long cartsDeleted, long itemsDeleted,
+                          long legacyRowsDeleted, long totalMillis, long lastRunMillis) {
+        this.runs = runs;
+        this.chunks = chunks;
+        this.cartsDeleted = cartsDeleted;
+        this.itemsDeleted = itemsDeleted;
+        this.legacyRowsDeleted = legacyRowsDeleted;
+        this.totalMillis = totalMillis;
+        this.lastRunMillis = lastRunMillis;
+    }
+
+    /**
+     * Геттеры для полей класса {@link CartSweepStats}.
+     */
+    public long getRuns() {
+        return runs;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getCartsDeleted() {
+        return cartsDeleted;
+    }
+
+    public long getItemsDeleted() {
+        return itemsDeleted;
+    }
+
+    public long getLegacyRowsDeleted() {
+        return legacyRowsDeleted;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+}
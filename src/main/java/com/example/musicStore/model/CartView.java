@@ -0,0 +1,57 @@
+package com.example.musicStore.model;
+
+import java.util.List;
+
+/**
+ * Класс, представляющий корзину для отображения: строки с суммами, общее количество и итоговую сумму.
+ * В отличие от сущности {@link Cart} не содержит пользователя и устаревшего списка продуктов.
+ */
+public class CartView {
+
+    /**
+     * Строки корзины в порядке добавления.
+     */
+    private final List<CartLine> items;
+
+    /**
+     * Общее количество единиц товаров.
+     */
+    private final int totalQuantity;
+
+    /**
+     * Итоговая сумма корзины.
+     */
+    private final double total;
+
+    /**
+     * Конструктор, вычисляющий итоги по строкам корзины.
+     *
+     * @param items строки корзины
+     */
+    public CartView(List<CartLine> items) {
+        this.items = items;
+        int quantity = 0;
+        double sum = 0;
+        for (CartLine line : items) {
+            quantity += line.getQuantity();
+            sum += line.getLineTotal();
+        }
+        this.totalQuantity = quantity;
+        this.total = sum;
+    }
+
+    /**
+     * Геттеры для полей класса {@link CartView}.
+     */
+    public List<CartLine> getItems() {
+        return items;
+    }
+
+    public int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+}
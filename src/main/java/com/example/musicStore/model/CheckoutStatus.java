@@ -0,0 +1,83 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий состояние асинхронного оформления заказа.
+ */
+public class CheckoutStatus {
+
+    /**
+     * Этапы оформления заказа.
+     */
+    public enum State {
+        /**
+         * Заявка ожидает в очереди.
+         */
+        PENDING,
+        /**
+         * Заказ оформляется.
+         */
+        PROCESSING,
+        /**
+         * Заказ создан.
+         */
+        COMPLETED,
+        /**
+         * Заказ не создан.
+         */
+        FAILED
+    }
+
+    /**
+     * Ссылка на заявку, по которой клиент запрашивает её состояние.
+     */
+    private final String reference;
+
+    /**
+     * Текущий этап оформления.
+     */
+    private final State status;
+
+    /**
+     * Идентификатор созданного заказа; заполнен на этапе {@link State#COMPLETED}.
+     */
+    private final Long orderId;
+
+    /**
+     * Причина ошибки; заполнена на этапе {@link State#FAILED}.
+     */
+    private final String message;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param reference ссылка на заявку
+     * @param status этап оформления
+     * @param orderId идентификатор созданного заказа или null
+     * @param message причина ошибки или null
+     */
+    public CheckoutStatus(String reference, State status, Long orderId, String message) {
+        this.reference = reference;
+        this.status = status;
+        this.orderId = orderId;
+        this.message = message;
+    }
+
+    /**
+     * Геттеры для полей класса {@link CheckoutStatus}.
+     */
+    public String getReference() {
+        return reference;
+    }
+
+    public State getStatus() {
+        return status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
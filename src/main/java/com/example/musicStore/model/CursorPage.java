@@ -0,0 +1,73 @@
+package com.example.musicStore.model;
+
+import java.util.List;
+
+/**
+ * Класс, представляющий страницу результатов курсорной (keyset) пагинации.
+ * Общее количество записей не считается: следующая страница запрашивается по {@link #nextCursor}.
+ *
+ * @param <T> тип элементов страницы
+ */
+public class CursorPage<T> {
+
+    /**
+     * Элементы текущей страницы.
+     */
+    private List<T> content;
+
+    /**
+     * Размер страницы.
+     */
+    private int size;
+
+    /**
+     * Курсор следующей страницы или null, если страница последняя.
+     */
+    private String nextCursor;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public CursorPage() {
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param content элементы страницы
+     * @param size размер страницы
+     * @param nextCursor курсор следующей страницы или null
+     */
+    public CursorPage(List<T> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link CursorPage}.
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
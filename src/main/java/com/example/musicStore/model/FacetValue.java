@@ -0,0 +1,50 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий значение фасета каталога (категории или бренда) с количеством продуктов.
+ */
+public class FacetValue {
+
+    /**
+     * Значение фасета.
+     */
+    private final String value;
+
+    /**
+     * Количество продуктов с этим значением.
+     */
+    private final long count;
+
+    /**
+     * Количество продуктов с этим значением, имеющихся на складе.
+     */
+    private final long inStockCount;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param value значение фасета
+     * @param count количество продуктов
+     * @param inStockCount количество продуктов в наличии
+     */
+    public FacetValue(String value, long count, long inStockCount) {
+        this.value = value;
+        this.count = count;
+        this.inStockCount = inStockCount;
+    }
+
+    /**
+     * Геттеры для полей класса {@link FacetValue}.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getInStockCount() {
+        return inStockCount;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.musicStore.model;
+
+import java.util.regex.Pattern;
+
+/**
+ * Параметры URL уменьшенных копий изображений продуктов.
+ * Копии доступны только для локальных изображений из каталога static/images; для внешних URL
+ * список копий пуст и клиент использует исходный адрес.
+ * В URL входит версия исходного файла, поэтому копии можно кэшировать как неизменяемые.
+ */
+public final class ImageVariants {
+
+    /**
+     * Ширины уменьшенных копий в пикселях.
+     */
+    public static final int[] WIDTHS = {160, 320, 640};
+
+    /**
+     * Префикс URL, по которому отдаются уменьшенные копии.
+     */
+    public static final String URL_PREFIX = "/api/public/images/";
+
+    /**
+     * Допустимые имена локальных изображений.
+     */
+    public static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*\\.(?i:png|jpe?g)");
+
+    /**
+     * Закрытый конструктор утилитного класса.
+     */
+    private ImageVariants() {
+    }
+
+    /**
+     * Извлекает имя файла из ссылки на локальное изображение вида images/имя или /images/имя.
+     *
+     * @param image значение поля image продукта
+     * @return имя файла или null, если изображение не локальное
+     */
+    public static String localName(String image) {
+        if (image == null) {
+            return null;
+        }
+        String path = image.startsWith("/") ? image.substring(1) : image;
+        if (!path.startsWith("images/")) {
+            return null;
+        }
+        String name = path.substring("images/".length());
+        return NAME_PATTERN.matcher(name).matches() ? name : null;
+    }
+}
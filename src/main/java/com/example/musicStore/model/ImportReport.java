@@ -0,0 +1,85 @@
+package com.example.musicStore.model;
+
+import java.util.List;
+
+/**
+ * Класс, представляющий итог импорта товаров.
+ */
+public class ImportReport {
+
+    /**
+     * Количество обработанных строк.
+     */
+    private long total;
+
+    /**
+     * Количество сохранённых товаров.
+     */
+    private long imported;
+
+    /**
+     * Количество отклонённых строк.
+     */
+    private long failed;
+
+    /**
+     * Ошибки по строкам; список ограничен, полное количество ошибок хранится в {@link #failed}.
+     */
+    private List<ImportRowError> errors;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public ImportReport() {
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param total количество обработанных строк
+     * @param imported количество сохранённых товаров
+     * @param failed количество отклонённых строк
+     * @param errors ошибки по строкам
+     */
+    public ImportReport(long total, long imported, long failed, List<ImportRowError> errors) {
+        this.total = total;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link ImportReport}.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public List<ImportRowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ImportRowError> errors) {
+        this.errors = errors;
+    }
+}
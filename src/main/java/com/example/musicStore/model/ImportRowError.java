@@ -0,0 +1,53 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий ошибку в одной строке импорта товаров.
+ */
+public class ImportRowError {
+
+    /**
+     * Номер строки данных (начиная с 1).
+     */
+    private long row;
+
+    /**
+     * Описание ошибки.
+     */
+    private String message;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public ImportRowError() {
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param row номер строки
+     * @param message описание ошибки
+     */
+    public ImportRowError(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link ImportRowError}.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -1,16 +1,23 @@
 package com.example.musicStore.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Класс сущности, представляющий заказ пользователя в приложении музыкального магазина.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date desc, id desc"),
+        @Index(name = "idx_orders_date_user_total", columnList = "order_date, user_id, total_price")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_orders_user_idempotency_key",
+        columnNames = {"user_id", "idempotency_key"}))
 public class Order {
 
     /**
@@ -28,19 +35,17 @@ public class Order {
     private User user;
 
     /**
-     * Список продуктов в заказе.
+     * Позиции заказа: по одной на каждый продукт с количеством и ценой на момент покупки.
+     * Записываются пакетом через JDBC при оформлении заказа.
      */
-    @ManyToMany
-    @JoinTable(
-            name = "order_products",
-            joinColumns = @JoinColumn(name = "order_id"),
-            inverseJoinColumns = @JoinColumn(name = "product_id")
-    )
-    private List<Product> products;
+    @OneToMany(mappedBy = "order", cascade = CascadeType.REMOVE)
+    @JsonManagedReference
+    private List<OrderItem> items = new ArrayList<>();
 
     /**
      * Дата и время создания заказа.
      */
+    @Column(name = "order_date")
     private LocalDateTime orderDate;
 
     /**
@@ -48,6 +53,13 @@ public class Order {
      */
     private double totalPrice;
 
+    /**
+     * Ключ идемпотентности запроса на оформление; один ключ пользователя соответствует не более чем одному заказу.
+     */
+    @Column(name = "idempotency_key")
+    @JsonIgnore
+    private String idempotencyKey;
+
     /**
      * Конструктор по умолчанию.
      */
@@ -102,29 +114,19 @@ public class Order {
         this.totalPrice = totalPrice;
     }
 
-    public List<Product> getProducts() {
-        return products;
+    public String getIdempotencyKey() {
+        return idempotencyKey;
     }
 
-    public void setProducts(List<Product> products) {
-        this.products = products;
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
     }
 
-    /**
-     * Добавляет продукт в заказ.
-     *
-     * @param product продукт для добавления
-     */
-    public void addProduct(Product product) {
-        this.products.add(product);
+    public List<OrderItem> getItems() {
+        return items;
     }
 
-    /**
-     * Удаляет продукт из заказа.
-     *
-     * @param product продукт для удаления
-     */
-    public void removeProduct(Product product) {
-        this.products.remove(product);
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
     }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.example.musicStore.model;
+
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import jakarta.persistence.*;
+
+/**
+ * Класс сущности, представляющий позицию заказа: продукт, количество единиц и цену за единицу на момент покупки.
+ * Каждый продукт встречается в заказе не более одного раза.
+ */
+@Entity
+@Table(name = "order_items", uniqueConstraints = @UniqueConstraint(name = "uk_order_items_order_product",
+        columnNames = {"order_id", "product_id"}))
+public class OrderItem {
+
+    /**
+     * Уникальный идентификатор позиции заказа.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Заказ, к которому относится позиция.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    @JsonBackReference
+    private Order order;
+
+    /**
+     * Заказанный продукт.
+     */
+    @ManyToOne
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    /**
+     * Количество единиц продукта.
+     */
+    @Column(nullable = false)
+    private int quantity;
+
+    /**
+     * Цена за единицу на момент оформления заказа; не меняется при изменении цены продукта.
+     */
+    @Column(name = "unit_price", nullable = false)
+    private double unitPrice;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public OrderItem() {
+    }
+
+    /**
+     * Конструктор с указанием заказа, продукта, количества и цены за единицу.
+     *
+     * @param order заказ, к которому относится позиция
+     * @param product заказанный продукт
+     * @param quantity количество единиц продукта
+     * @param unitPrice цена за единицу на момент заказа
+     */
+    public OrderItem(Order order, Product product, int quantity, double unitPrice) {
+        this.order = order;
+        this.product = product;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    /**
+     * Возвращает стоимость позиции по цене на момент заказа.
+     *
+     * @return цена за единицу, умноженная на количество
+     */
+    public double getLineTotal() {
+        return unitPrice * quantity;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link OrderItem}.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+}
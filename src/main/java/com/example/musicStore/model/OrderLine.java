@@ -0,0 +1,78 @@
+package com.example.musicStore.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Класс, представляющий позицию в кратком представлении заказа: продукт, количество и цену на момент покупки.
+ */
+public class OrderLine {
+
+    /**
+     * Идентификатор заказа, к которому относится позиция; нужен для группировки и не передаётся клиенту.
+     */
+    private final Long orderId;
+
+    /**
+     * Краткие сведения о продукте с текущей ценой.
+     */
+    private final ProductSummary product;
+
+    /**
+     * Количество единиц продукта.
+     */
+    private final int quantity;
+
+    /**
+     * Цена за единицу на момент оформления заказа.
+     */
+    private final double unitPrice;
+
+    /**
+     * Сумма по позиции по цене на момент заказа.
+     */
+    private final double lineTotal;
+
+    /**
+     * Конструктор для проекции запроса JPQL.
+     *
+     * @param orderId идентификатор заказа
+     * @param productId идентификатор продукта
+     * @param name название продукта
+     * @param image путь к изображению
+     * @param price текущая цена продукта
+     * @param quantity количество единиц продукта
+     * @param unitPrice цена за единицу на момент заказа
+     */
+    public OrderLine(Long orderId, Long productId, String name, String image, double price,
+                     int quantity, double unitPrice) {
+        this.orderId = orderId;
+        this.product = new ProductSummary(productId, name, image, price);
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.lineTotal = unitPrice * quantity;
+    }
+
+    /**
+     * Геттеры для полей класса {@link OrderLine}.
+     */
+    @JsonIgnore
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public ProductSummary getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public double getLineTotal() {
+        return lineTotal;
+    }
+}
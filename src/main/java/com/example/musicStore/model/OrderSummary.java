@@ -0,0 +1,95 @@
+package com.example.musicStore.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Класс, представляющий краткое представление заказа для истории заказов: без данных пользователя
+ * и с позициями в виде {@link OrderLine}.
+ */
+public class OrderSummary {
+
+    /**
+     * Идентификатор заказа.
+     */
+    private final Long id;
+
+    /**
+     * Дата и время оформления заказа.
+     */
+    private final LocalDateTime orderDate;
+
+    /**
+     * Общая стоимость заказа.
+     */
+    private final double totalPrice;
+
+    /**
+     * Позиции заказа.
+     */
+    private final List<OrderLine> items;
+
+    /**
+     * Конструктор для проекции запроса JPQL; позиции добавляются отдельно методом {@link #withItems(List)}.
+     *
+     * @param id идентификатор заказа
+     * @param orderDate дата и время заказа
+     * @param totalPrice общая стоимость заказа
+     */
+    public OrderSummary(Long id, LocalDateTime orderDate, double totalPrice) {
+        this(id, orderDate, totalPrice, List.of());
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param id идентификатор заказа
+     * @param orderDate дата и время заказа
+     * @param totalPrice общая стоимость заказа
+     * @param items позиции заказа
+     */
+    public OrderSummary(Long id, LocalDateTime orderDate, double totalPrice, List<OrderLine> items) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.totalPrice = totalPrice;
+        this.items = List.copyOf(items);
+    }
+
+    /**
+     * Возвращает копию заказа с указанными позициями.
+     *
+     * @param items позиции заказа
+     * @return заказ с позициями
+     */
+    public OrderSummary withItems(List<OrderLine> items) {
+        return new OrderSummary(id, orderDate, totalPrice, items);
+    }
+
+    /**
+     * Возвращает общее количество единиц товаров в заказе.
+     *
+     * @return сумма количеств по позициям
+     */
+    public int getTotalQuantity() {
+        return items.stream().mapToInt(OrderLine::getQuantity).sum();
+    }
+
+    /**
+     * Геттеры для полей класса {@link OrderSummary}.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public List<OrderLine> getItems() {
+        return items;
+    }
+}
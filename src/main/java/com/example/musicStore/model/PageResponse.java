@@ -0,0 +1,102 @@
+package com.example.musicStore.model;
+
+import java.util.List;
+
+/**
+ * Класс, представляющий страницу результатов выборки вместе с общим количеством записей.
+ *
+ * @param <T> тип элементов страницы
+ */
+public class PageResponse<T> {
+
+    /**
+     * Элементы текущей страницы.
+     */
+    private List<T> content;
+
+    /**
+     * Номер страницы (начиная с 0).
+     */
+    private int page;
+
+    /**
+     * Размер страницы.
+     */
+    private int size;
+
+    /**
+     * Общее количество записей, удовлетворяющих условиям выборки.
+     */
+    private long totalElements;
+
+    /**
+     * Общее количество страниц.
+     */
+    private int totalPages;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public PageResponse() {
+    }
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param content элементы страницы
+     * @param page номер страницы
+     * @param size размер страницы
+     * @param totalElements общее количество записей
+     * @param totalPages общее количество страниц
+     */
+    public PageResponse(List<T> content, int page, int size, long totalElements, int totalPages) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+        this.totalPages = totalPages;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link PageResponse}.
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(long totalElements) {
+        this.totalElements = totalElements;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+}
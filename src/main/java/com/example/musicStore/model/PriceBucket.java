@@ -0,0 +1,50 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий ценовой диапазон гистограммы [from, to) с количеством продуктов.
+ */
+public class PriceBucket {
+
+    /**
+     * Нижняя граница диапазона (включительно).
+     */
+    private final double from;
+
+    /**
+     * Верхняя граница диапазона (не включительно) или null для последнего открытого диапазона.
+     */
+    private final Double to;
+
+    /**
+     * Количество продуктов в диапазоне.
+     */
+    private final long count;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param from нижняя граница
+     * @param to верхняя граница или null
+     * @param count количество продуктов
+     */
+    public PriceBucket(double from, Double to, long count) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    /**
+     * Геттеры для полей класса {@link PriceBucket}.
+     */
+    public double getFrom() {
+        return from;
+    }
+
+    public Double getTo() {
+        return to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.musicStore.model;
+
+import java.util.List;
+
+/**
+ * Класс, представляющий гистограмму цен каталога или категории для ценового фильтра.
+ */
+public class PriceHistogram {
+
+    /**
+     * Минимальная цена или null, если продуктов нет.
+     */
+    private final Double minPrice;
+
+    /**
+     * Максимальная цена или null, если продуктов нет.
+     */
+    private final Double maxPrice;
+
+    /**
+     * Общее количество продуктов.
+     */
+    private final long total;
+
+    /**
+     * Количество продуктов в запрошенном диапазоне цен.
+     */
+    private final long rangeCount;
+
+    /**
+     * Ценовые диапазоны в порядке возрастания.
+     */
+    private final List<PriceBucket> buckets;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param total общее количество продуктов
+     * @param rangeCount количество продуктов в запрошенном диапазоне
+     * @param buckets ценовые диапазоны
+     */
+    public PriceHistogram(Double minPrice, Double maxPrice, long total, long rangeCount, List<PriceBucket> buckets) {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.total = total;
+        this.rangeCount = rangeCount;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Геттеры для полей класса {@link PriceHistogram}.
+     */
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getRangeCount() {
+        return rangeCount;
+    }
+
+    public List<PriceBucket> getBuckets() {
+        return buckets;
+    }
+}
@@ -1,14 +1,22 @@
 package com.example.musicStore.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.util.Map;
+
 /**
  * Класс сущности, представляющий продукт в приложении музыкального магазина.
  */
 @Entity
 @Data
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_price", columnList = "category, price"),
+        @Index(name = "idx_products_brand_price", columnList = "brand, price"),
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        @Index(name = "idx_products_name", columnList = "name, id")
+})
 public class Product {
 
     /**
@@ -16,7 +24,7 @@ public class Product {
      */
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
-    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 1)
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -54,6 +62,11 @@ public class Product {
      */
     private String description;
 
+    /**
+     * URL уменьшенных копий изображения по ширине; заполняются сервисом продуктов.
+     */
+    private transient Map<Integer, String> imageVariants = Map.of();
+
     /**
      * Конструктор по умолчанию.
      */
@@ -112,6 +125,21 @@ public class Product {
         return image;
     }
 
+    /**
+     * Возвращает URL уменьшенных копий изображения по ширине для атрибута srcset.
+     * Для внешних изображений копий нет и словарь пуст.
+     *
+     * @return URL копий по ширине в пикселях
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Map<Integer, String> getImageVariants() {
+        return imageVariants;
+    }
+
+    public void setImageVariants(Map<Integer, String> imageVariants) {
+        this.imageVariants = imageVariants;
+    }
+
     public String getBrand() {
         return brand;
     }
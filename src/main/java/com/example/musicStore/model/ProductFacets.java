@@ -0,0 +1,41 @@
+package com.example.musicStore.model;
+
+import java.util.List;
+
+/**
+ * Класс, представляющий фасеты каталога: категории и бренды с количеством продуктов.
+ */
+public class ProductFacets {
+
+    /**
+     * Категории в алфавитном порядке.
+     */
+    private final List<FacetValue> categories;
+
+    /**
+     * Бренды в алфавитном порядке.
+     */
+    private final List<FacetValue> brands;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param categories категории
+     * @param brands бренды
+     */
+    public ProductFacets(List<FacetValue> categories, List<FacetValue> brands) {
+        this.categories = categories;
+        this.brands = brands;
+    }
+
+    /**
+     * Геттеры для полей класса {@link ProductFacets}.
+     */
+    public List<FacetValue> getCategories() {
+        return categories;
+    }
+
+    public List<FacetValue> getBrands() {
+        return brands;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий набор критериев фильтрации каталога продуктов.
+ * Все поля необязательны: незаданный критерий не ограничивает выборку.
+ */
+public class ProductFilter {
+
+    /**
+     * Категория продукта.
+     */
+    private String category;
+
+    /**
+     * Бренд продукта.
+     */
+    private String brand;
+
+    /**
+     * Минимальная цена (включительно).
+     */
+    private Double minPrice;
+
+    /**
+     * Максимальная цена (включительно).
+     */
+    private Double maxPrice;
+
+    /**
+     * Признак наличия на складе.
+     */
+    private Boolean inStock;
+
+    /**
+     * Строка полнотекстового поиска по названию, бренду и описанию.
+     */
+    private String query;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public ProductFilter() {
+    }
+
+    /**
+     * Конструктор с указанием всех критериев.
+     *
+     * @param category категория продукта
+     * @param brand бренд продукта
+     * @param minPrice минимальная цена
+     * @param maxPrice максимальная цена
+     * @param inStock признак наличия на складе
+     * @param query строка поиска
+     */
+    public ProductFilter(String category, String brand, Double minPrice, Double maxPrice, Boolean inStock, String query) {
+        this.category = category;
+        this.brand = brand;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStock = inStock;
+        this.query = query;
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link ProductFilter}.
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public void setBrand(String brand) {
+        this.brand = brand;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Boolean getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(Boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий продажи продукта за период: количество проданных единиц и выручку.
+ */
+public class ProductSales {
+
+    /**
+     * Идентификатор продукта.
+     */
+    private final Long productId;
+
+    /**
+     * Название продукта или null, если продукт удалён.
+     */
+    private final String name;
+
+    /**
+     * Количество проданных единиц.
+     */
+    private final long quantity;
+
+    /**
+     * Выручка по продукту.
+     */
+    private final double revenue;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param productId идентификатор продукта
+     * @param name название продукта или null
+     * @param quantity количество проданных единиц
+     * @param revenue выручка
+     */
+    public ProductSales(Long productId, String name, long quantity, double revenue) {
+        this.productId = productId;
+        this.name = name;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    /**
+     * Возвращает копию с указанным названием продукта.
+     *
+     * @param name название продукта
+     * @return продажи продукта с названием
+     */
+    public ProductSales withName(String name) {
+        return new ProductSales(productId, name, quantity, revenue);
+    }
+
+    /**
+     * Геттеры для полей класса {@link ProductSales}.
+     */
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий краткие сведения о продукте для отображения в корзине.
+ */
+public class ProductSummary {
+
+    /**
+     * Идентификатор продукта.
+     */
+    private final Long id;
+
+    /**
+     * Название продукта.
+     */
+    private final String name;
+
+    /**
+     * Путь к изображению продукта.
+     */
+    private final String image;
+
+    /**
+     * Цена продукта.
+     */
+    private final double price;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param id идентификатор продукта
+     * @param name название продукта
+     * @param image путь к изображению
+     * @param price цена продукта
+     */
+    public ProductSummary(Long id, String name, String image, double price) {
+        this.id = id;
+        this.name = name;
+        this.image = image;
+        this.price = price;
+    }
+
+    /**
+     * Геттеры для полей класса {@link ProductSummary}.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
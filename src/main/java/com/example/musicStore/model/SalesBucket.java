@@ -0,0 +1,52 @@
+package com.example.musicStore.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Класс, представляющий продажи за интервал времени: количество заказов и выручку.
+ */
+public class SalesBucket {
+
+    /**
+     * Начало интервала.
+     */
+    private final LocalDateTime start;
+
+    /**
+     * Количество заказов.
+     */
+    private final long orderCount;
+
+    /**
+     * Выручка.
+     */
+    private final double revenue;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param start начало интервала
+     * @param orderCount количество заказов
+     * @param revenue выручка
+     */
+    public SalesBucket(LocalDateTime start, long orderCount, double revenue) {
+        this.start = start;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    /**
+     * Геттеры для полей класса {@link SalesBucket}.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+}
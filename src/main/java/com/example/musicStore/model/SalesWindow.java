@@ -0,0 +1,75 @@
+package com.example.musicStore.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Класс, представляющий продажи за скользящее окно (например, последний час): итоги и самые продаваемые продукты.
+ */
+public class SalesWindow {
+
+    /**
+     * Название окна: 1h, 24h или 7d.
+     */
+    private final String window;
+
+    /**
+     * Начало окна.
+     */
+    private final LocalDateTime from;
+
+    /**
+     * Количество заказов за окно.
+     */
+    private final long orderCount;
+
+    /**
+     * Выручка за окно.
+     */
+    private final double revenue;
+
+    /**
+     * Продукты с наибольшим количеством проданных единиц за окно.
+     */
+    private final List<ProductSales> topProducts;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param window название окна
+     * @param from начало окна
+     * @param orderCount количество заказов
+     * @param revenue выручка
+     * @param topProducts самые продаваемые продукты
+     */
+    public SalesWindow(String window, LocalDateTime from, long orderCount, double revenue, List<ProductSales> topProducts) {
+        this.window = window;
+        this.from = from;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+        this.topProducts = topProducts;
+    }
+
+    /**
+     * Геттеры для полей класса {@link SalesWindow}.
+     */
+    public String getWindow() {
+        return window;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public List<ProductSales> getTopProducts() {
+        return topProducts;
+    }
+}
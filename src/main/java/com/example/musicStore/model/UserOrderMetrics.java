@@ -0,0 +1,50 @@
+package com.example.musicStore.model;
+
+/**
+ * Класс, представляющий метрики заказов одного пользователя: количество заказов и их общую стоимость.
+ */
+public class UserOrderMetrics {
+
+    /**
+     * Имя пользователя.
+     */
+    private final String username;
+
+    /**
+     * Количество заказов.
+     */
+    private final long orderCount;
+
+    /**
+     * Общая стоимость заказов.
+     */
+    private final double totalPrice;
+
+    /**
+     * Конструктор для проекции запроса JPQL с группировкой.
+     *
+     * @param username имя пользователя
+     * @param orderCount количество заказов
+     * @param totalPrice общая стоимость заказов
+     */
+    public UserOrderMetrics(String username, Long orderCount, Double totalPrice) {
+        this.username = username;
+        this.orderCount = orderCount == null ? 0 : orderCount;
+        this.totalPrice = totalPrice == null ? 0 : totalPrice;
+    }
+
+    /**
+     * Геттеры для полей класса {@link UserOrderMetrics}.
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+}
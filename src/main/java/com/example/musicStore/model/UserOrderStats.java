@@ -0,0 +1,65 @@
+package com.example.musicStore.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Класс сущности, представляющий накопленные итоги заказов пользователя: количество заказов и их общую стоимость.
+ * Обновляется при оформлении заказа и удалении пользователя и периодически сверяется с таблицей заказов,
+ * поэтому метрики заказов читаются без агрегации всей таблицы orders.
+ */
+@Entity
+@Table(name = "user_order_stats")
+public class UserOrderStats {
+
+    /**
+     * Идентификатор пользователя.
+     */
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * Количество заказов пользователя.
+     */
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    /**
+     * Общая стоимость заказов пользователя.
+     */
+    @Column(name = "total_price", nullable = false)
+    private double totalPrice;
+
+    /**
+     * Конструктор по умолчанию.
+     */
+    public UserOrderStats() {
+    }
+
+    /**
+     * Геттеры и сеттеры для полей класса {@link UserOrderStats}.
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(double totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.musicStore.repository;
+
+import com.example.musicStore.model.CartItem;
+import com.example.musicStore.model.CartItemQuantity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью {@link CartItem} в базе данных.
+ * Изменение количества выполняется одним оператором INSERT ... ON CONFLICT по уникальной паре
+ * (cart_id, product_id), поэтому одновременные добавления одного товара не теряют друг друга.
+ */
+@Repository
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+    /**
+     * Увеличивает количество товара в корзине пользователя, создавая элемент корзины при его отсутствии.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @param quantity на сколько увеличить количество
+     * @param maxQuantity максимальное количество одного товара в корзине
+     * @return новое количество или null, если у пользователя нет корзины
+     */
+    @Transactional
+    @Query(value = "INSERT INTO cart_items (cart_id, product_id, quantity) " +
+            "SELECT c.id, :productId, LEAST(:quantity, :maxQuantity) FROM carts c WHERE c.user_id = :userId " +
+            "ON CONFLICT (cart_id, product_id) " +
+            "DO UPDATE SET quantity = LEAST(cart_items.quantity + EXCLUDED.quantity, :maxQuantity), " +
+            "version = cart_items.version + 1, updated_at = now() " +
+            "RETURNING quantity", nativeQuery = true)
+    Integer addQuantity(@Param("userId") Long userId, @Param("productId") Long productId,
+                        @Param("quantity") int quantity, @Param("maxQuantity") int maxQuantity);
+
+    /**
+     * Устанавливает точное количество товара в корзине пользователя, создавая элемент корзины при его отсутствии.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @param quantity новое количество (больше нуля)
+     * @return установленное количество или null, если у пользователя нет корзины
+     */
+    @Transactional
+    @Query(value = "INSERT INTO cart_items (cart_id, product_id, quantity) " +
+            "SELECT c.id, :productId, :quantity FROM carts c WHERE c.user_id = :userId " +
+            "ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity, " +
+            "version = cart_items.version + 1, updated_at = now() " +
+            "RETURNING quantity", nativeQuery = true)
+    Integer setQuantity(@Param("userId") Long userId, @Param("productId") Long productId,
+                        @Param("quantity") int quantity);
+
+    /**
+     * Удаляет товар из корзины пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @return количество удалённых строк
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM cart_items ci USING carts c " +
+            "WHERE ci.cart_id = c.id AND c.user_id = :userId AND ci.product_id = :productId", nativeQuery = true)
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    /**
+     * Возвращает количества товаров в корзине пользователя в порядке добавления.
+     *
+     * @param userId идентификатор пользователя
+     * @return идентификаторы продуктов с количеством
+     */
+    @Query("select new com.example.musicStore.model.CartItemQuantity(ci.product.id, ci.quantity) " +
+            "from CartItem ci where ci.cart.user.id = :userId order by ci.id")
+    List<CartItemQuantity> findQuantitiesByUserId(@Param("userId") Long userId);
+}
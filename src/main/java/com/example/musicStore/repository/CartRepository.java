@@ -1,9 +1,15 @@
 package com.example.musicStore.repository;
 
 import com.example.musicStore.model.Cart;
+import com.example.musicStore.model.CartLine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +32,25 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
      * @param userId идентификатор пользователя
      */
     void deleteByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Создаёт пустую корзину пользователя, если её ещё нет. Одновременные вызовы для одного пользователя
+     * безопасны благодаря уникальности carts.user_id.
+     *
+     * @param userId идентификатор пользователя
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO carts (user_id) VALUES (:userId) ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    void createIfAbsent(@Param("userId") Long userId);
+
+    /**
+     * Возвращает строки корзины пользователя с краткими сведениями о продуктах одним запросом.
+     *
+     * @param userId идентификатор пользователя
+     * @return строки корзины в порядке добавления
+     */
+    @Query("select new com.example.musicStore.model.CartLine(p.id, p.name, p.image, p.price, ci.quantity) " +
+            "from CartItem ci join ci.product p where ci.cart.user.id = :userId order by ci.id")
+    List<CartLine> findCartLines(@Param("userId") Long userId);
+}
@@ -0,0 +1,28 @@
+package com.example.musicStore.repository;
+
+import com.example.musicStore.model.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Репозиторий для работы с сущностью {@link OrderItem} в базе данных.
+ * Позиции нового заказа записываются пакетом через JDBC в {@link com.example.musicStore.service.OrderService}.
+ */
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    /**
+     * Удаляет продукт из всех заказов одним оператором.
+     *
+     * @param productId идентификатор продукта
+     * @return количество удалённых позиций
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from OrderItem oi where oi.product.id = :productId")
+    int deleteByProductId(@Param("productId") Long productId);
+}
@@ -1,9 +1,22 @@
 package com.example.musicStore.repository;
 
 import com.example.musicStore.model.Order;
+import com.example.musicStore.model.OrderLine;
+import com.example.musicStore.model.OrderSummary;
+import com.example.musicStore.model.UserOrderMetrics;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью {@link Order} в базе данных.
@@ -11,12 +24,102 @@ import java.util.List;
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     /**
-     * Находит все заказы по идентификатору пользователя.
+     * Находит заказ пользователя, оформленный с указанным ключом идемпотентности.
      *
      * @param userId идентификатор пользователя
-     * @return список заказов пользователя
+     * @param idempotencyKey ключ идемпотентности
+     * @return заказ или null, если такого заказа нет
      */
-    List<Order> findByUserId(Long userId);
+    Order findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Находит первые заказы пользователя, начиная с самых новых, в кратком представлении без позиций.
+     * Используется для курсорной пагинации; размер выборки задаётся через {@link Pageable}.
+     *
+     * @param userId идентификатор пользователя
+     * @param pageable ограничение размера выборки
+     * @return список заказов
+     */
+    @Query("select new com.example.musicStore.model.OrderSummary(o.id, o.orderDate, o.totalPrice)"
+            + " from Order o where o.user.id = :userId order by o.orderDate desc, o.id desc")
+    List<OrderSummary> findLatestByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Находит заказы пользователя, идущие после позиции (дата заказа, id) в порядке от новых к старым,
+     * в кратком представлении без позиций.
+     *
+     * @param userId идентификатор пользователя
+     * @param orderDate дата последнего заказа предыдущей страницы
+     * @param id идентификатор последнего заказа предыдущей страницы
+     * @param pageable ограничение размера выборки
+     * @return список заказов
+     */
+    @Query("select new com.example.musicStore.model.OrderSummary(o.id, o.orderDate, o.totalPrice)"
+            + " from Order o where o.user.id = :userId and o.orderDate <= :orderDate"
+            + " and (o.orderDate < :orderDate or o.id < :id) order by o.orderDate desc, o.id desc")
+    List<OrderSummary> findByUserIdBefore(@Param("userId") Long userId, @Param("orderDate") LocalDateTime orderDate,
+                                          @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Находит позиции нескольких заказов одним запросом вместе с краткими сведениями о продуктах.
+     *
+     * @param orderIds идентификаторы заказов
+     * @return позиции заказов в порядке добавления
+     */
+    @Query("select new com.example.musicStore.model.OrderLine(oi.order.id, p.id, p.name, p.image, p.price,"
+            + " oi.quantity, oi.unitPrice) from OrderItem oi join oi.product p where oi.order.id in :orderIds"
+            + " order by oi.id")
+    List<OrderLine> findLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Читает заказы пользователя курсором в порядке идентификаторов.
+     * Поток нужно закрыть и потреблять внутри транзакции.
+     *
+     * @param userId идентификатор пользователя
+     * @return поток заказов
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select o from Order o join fetch o.user where o.user.id = :userId order by o.id")
+    Stream<Order> streamByUserId(@Param("userId") Long userId);
+
+    /**
+     * Считает количество и общую стоимость заказов по пользователям за период группировкой в базе данных;
+     * пользователи упорядочены по убыванию количества заказов.
+     *
+     * @param from начало периода включительно
+     * @param to конец периода не включительно
+     * @param pageable страница результата
+     * @return страница метрик пользователей
+     */
+    @Query(value = "select new com.example.musicStore.model.UserOrderMetrics(u.username, count(o), sum(o.totalPrice))"
+            + " from Order o join o.user u"
+            + " where o.orderDate >= :from and o.orderDate < :to"
+            + " group by u.id, u.username order by count(o) desc, u.id",
+            countQuery = "select count(distinct o.user.id) from Order o"
+                    + " where o.orderDate >= :from and o.orderDate < :to")
+    Page<UserOrderMetrics> findMetricsByOrderCount(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   Pageable pageable);
+
+    /**
+     * Считает количество и общую стоимость заказов по пользователям за период группировкой в базе данных;
+     * пользователи упорядочены по убыванию общей стоимости заказов.
+     *
+     * @param from начало периода включительно
+     * @param to конец периода не включительно
+     * @param pageable страница результата
+     * @return страница метрик пользователей
+     */
+    @Query(value = "select new com.example.musicStore.model.UserOrderMetrics(u.username, count(o), sum(o.totalPrice))"
+            + " from Order o join o.user u"
+            + " where o.orderDate >= :from and o.orderDate < :to"
+            + " group by u.id, u.username order by sum(o.totalPrice) desc, u.id",
+            countQuery = "select count(distinct o.user.id) from Order o"
+                    + " where o.orderDate >= :from and o.orderDate < :to")
+    Page<UserOrderMetrics> findMetricsByTotalPrice(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   Pageable pageable);
 
     /**
      * Удаляет все заказы по идентификатору пользователя.
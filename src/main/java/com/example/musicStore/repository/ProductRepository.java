@@ -1,10 +1,31 @@
 package com.example.musicStore.repository;
 
 import com.example.musicStore.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью {@link Product} в базе данных.
+ * Поддерживает выборку по спецификациям из {@link ProductSpecifications}.
  */
-public interface ProductRepository extends JpaRepository<Product, Long> {
-}
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    /**
+     * Читает все продукты курсором в порядке идентификаторов.
+     * Поток нужно закрыть и потреблять внутри транзакции.
+     *
+     * @return поток продуктов
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAll();
+}
@@ -0,0 +1,113 @@
+package com.example.musicStore.repository;
+
+import com.example.musicStore.model.Product;
+import com.example.musicStore.model.ProductFilter;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Набор спецификаций для построения запроса к каталогу продуктов по критериям {@link ProductFilter}.
+ */
+public final class ProductSpecifications {
+
+    /**
+     * Закрытый конструктор утилитного класса.
+     */
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Строит спецификацию, объединяющую через AND все заданные критерии фильтра.
+     *
+     * @param filter критерии фильтрации
+     * @return спецификация для {@link ProductRepository}
+     */
+    public static Specification<Product> byFilter(ProductFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (hasText(filter.getCategory())) {
+                predicates.add(cb.equal(root.get("category"), filter.getCategory()));
+            }
+            if (hasText(filter.getBrand())) {
+                predicates.add(cb.equal(root.get("brand"), filter.getBrand()));
+            }
+            if (filter.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.getMinPrice()));
+            }
+            if (filter.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.getMaxPrice()));
+            }
+            if (filter.getInStock() != null) {
+                predicates.add(cb.equal(root.get("inStock"), filter.getInStock()));
+            }
+            if (hasText(filter.getQuery())) {
+                String pattern = "%" + escapeLike(filter.getQuery().trim().toLowerCase(Locale.ROOT)) + "%";
+                predicates.add(cb.or(
+                        cb.like(cb.lower(root.get("name")), pattern, '\\'),
+                        cb.like(cb.lower(root.get("brand")), pattern, '\\'),
+                        cb.like(cb.lower(root.get("description")), pattern, '\\')
+                ));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Строит условие поиска записей, идущих после позиции курсора в порядке (ключ, id).
+     * Направление идентификатора совпадает с направлением ключа, чтобы условие и сортировка
+     * обслуживались одним индексом (ключ, id). Для ключей, допускающих null, учитывается порядок
+     * PostgreSQL по умолчанию: null в конце при возрастании и в начале при убывании.
+     *
+     * @param attribute атрибут ключа сортировки или "id", если сортировка только по идентификатору
+     * @param descending true для сортировки по убыванию
+     * @param nullable true, если ключ может быть null
+     * @param key значение ключа последней записи предыдущей страницы или null
+     * @param id идентификатор последней записи предыдущей страницы
+     * @param <Y> тип ключа
+     * @return спецификация для {@link ProductRepository}
+     */
+    public static <Y extends Comparable<? super Y>> Specification<Product> after(String attribute, boolean descending,
+                                                                                 boolean nullable, Y key, long id) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            Predicate idAfter = descending ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+            if ("id".equals(attribute)) {
+                return idAfter;
+            }
+            Path<Y> keyPath = root.get(attribute);
+            if (key == null) {
+                Predicate inNulls = cb.and(cb.isNull(keyPath), idAfter);
+                return descending ? cb.or(inNulls, cb.isNotNull(keyPath)) : inNulls;
+            }
+            Predicate bound = descending ? cb.lessThanOrEqualTo(keyPath, key) : cb.greaterThanOrEqualTo(keyPath, key);
+            Predicate keyAfter = descending ? cb.lessThan(keyPath, key) : cb.greaterThan(keyPath, key);
+            Predicate seek = cb.and(bound, cb.or(keyAfter, cb.and(cb.equal(keyPath, key), idAfter)));
+            return nullable && !descending ? cb.or(seek, cb.isNull(keyPath)) : seek;
+        };
+    }
+
+    /**
+     * Проверяет, что строка не пустая.
+     *
+     * @param value строка
+     * @return true, если строка содержит непробельные символы
+     */
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Экранирует спецсимволы шаблона LIKE во введённой пользователем строке.
+     *
+     * @param value исходная строка
+     * @return экранированная строка
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
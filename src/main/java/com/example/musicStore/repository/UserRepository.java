@@ -1,9 +1,17 @@
 package com.example.musicStore.repository;
 
 import com.example.musicStore.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью {@link User} в базе данных.
@@ -17,6 +25,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Находит идентификатор пользователя по имени пользователя, не загружая саму сущность.
+     *
+     * @param username имя пользователя
+     * @return {@link Optional} с идентификатором или пустой, если пользователь не найден
+     */
+    @Query("select u.id from User u where u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
     /**
      * Находит пользователя по адресу электронной почты.
      *
@@ -24,4 +41,27 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return {@link Optional} с найденным пользователем или пустой, если пользователь не найден
      */
     Optional<User> findByEmail(String email);
+
+    /**
+     * Находит пользователей с идентификатором больше заданного в порядке идентификаторов.
+     * Используется для курсорной пагинации; размер выборки задаётся через {@link Pageable}.
+     *
+     * @param id идентификатор последнего пользователя предыдущей страницы
+     * @param pageable ограничение размера выборки
+     * @return список пользователей
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Читает всех пользователей курсором в порядке идентификаторов.
+     * Поток нужно закрыть и потреблять внутри транзакции.
+     *
+     * @return поток пользователей
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
 }
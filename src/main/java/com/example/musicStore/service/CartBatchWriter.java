@@ -0,0 +1,116 @@
+package com.example.musicStore.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись изменений корзин в таблицу cart_items через JDBC.
+ * Каждый вид изменения выполняется одним пакетом операторов независимо от количества товаров.
+ * Методы работают в транзакции вызывающего кода.
+ */
+@Component
+public class CartBatchWriter {
+
+    /**
+     * Создание корзины пользователя, если её ещё нет.
+     */
+    private static final String CREATE_CART_SQL =
+            "INSERT INTO carts (user_id) VALUES (?) ON CONFLICT (user_id) DO NOTHING";
+
+    /**
+     * Запись итогового количества товара; удалённые из каталога товары пропускаются.
+     */
+    private static final String SET_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity) " +
+            "SELECT c.id, p.id, ? FROM carts c JOIN products p ON p.id = ? WHERE c.user_id = ? " +
+            "ON CONFLICT (cart_id, product_id) " +
+            "DO UPDATE SET quantity = EXCLUDED.quantity, version = cart_items.version + 1, updated_at = now()";
+
+    /**
+     * Увеличение количества товара; удалённые из каталога товары пропускаются.
+     */
+    private static final String INCREMENT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity) " +
+            "SELECT c.id, p.id, LEAST(?, ?) FROM carts c JOIN products p ON p.id = ? WHERE c.user_id = ? " +
+            "ON CONFLICT (cart_id, product_id) " +
+            "DO UPDATE SET quantity = LEAST(cart_items.quantity + EXCLUDED.quantity, ?), " +
+            "version = cart_items.version + 1, updated_at = now()";
+
+    /**
+     * Удаление товара из корзины.
+     */
+    private static final String DELETE_ITEM_SQL =
+            "DELETE FROM cart_items ci USING carts c " +
+            "WHERE ci.cart_id = c.id AND c.user_id = ? AND ci.product_id = ?";
+
+    /**
+     * Выполнение операторов JDBC.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Записывает итоговые количества товаров в корзинах нескольких пользователей.
+     *
+     * @param quantities по идентификатору пользователя — итоговое количество по идентификатору продукта (0 — удалить)
+     */
+    public void setQuantities(Map<Long, Map<Long, Integer>> quantities) {
+        List<Object[]> newCarts = new ArrayList<>();
+        List<Object[]> sets = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (Map.Entry<Long, Map<Long, Integer>> cart : quantities.entrySet()) {
+            Long userId = cart.getKey();
+            boolean hasSets = false;
+            for (Map.Entry<Long, Integer> item : cart.getValue().entrySet()) {
+                if (item.getValue() > 0) {
+                    sets.add(new Object[]{item.getValue(), item.getKey(), userId});
+                    hasSets = true;
+                } else {
+                    deletes.add(new Object[]{userId, item.getKey()});
+                }
+            }
+            if (hasSets) {
+                newCarts.add(new Object[]{userId});
+            }
+        }
+        batch(CREATE_CART_SQL, newCarts);
+        batch(SET_ITEM_SQL, sets);
+        batch(DELETE_ITEM_SQL, deletes);
+    }
+
+    /**
+     * Увеличивает количества товаров в корзине пользователя относительно текущих значений в базе данных,
+     * поэтому одновременные добавления не теряют друг друга.
+     *
+     * @param userId идентификатор пользователя
+     * @param increments на сколько увеличить количество по идентификатору продукта
+     * @param maxQuantity максимальное количество одного продукта в корзине
+     */
+    public void increment(Long userId, Map<Long, Integer> increments, int maxQuantity) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(increments.size());
+        increments.forEach((productId, quantity) ->
+                rows.add(new Object[]{quantity, maxQuantity, productId, userId, maxQuantity}));
+        jdbcTemplate.update(CREATE_CART_SQL, userId);
+        batch(INCREMENT_ITEM_SQL, rows);
+    }
+
+    /**
+     * Выполняет пакет операторов, если он не пуст.
+     *
+     * @param sql оператор
+     * @param rows параметры строк пакета
+     */
+    private void batch(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.musicStore.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Исполнитель изменений корзины: каждая попытка выполняется в своей транзакции, а при конфликте версий
+ * ({@link jakarta.persistence.Version}) или взаимной блокировке в базе данных повторяется
+ * ограниченное число раз с экспоненциальной задержкой.
+ * Дополнительно изменения корзины одного пользователя могут упорядочиваться внутри процесса
+ * блокировками по полосам, что убирает конфликты между вкладками и двойными нажатиями ещё до базы данных.
+ */
+@Component
+public class CartMutationExecutor {
+
+    /**
+     * Максимальная задержка между попытками в миллисекундах.
+     */
+    private static final long MAX_BACKOFF_MILLIS = 1000;
+
+    /**
+     * Максимальное количество попыток.
+     */
+    @Value("${store.cart.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Задержка перед второй попыткой в миллисекундах; каждая следующая задержка вдвое больше.
+     */
+    @Value("${store.cart.retry.backoff-ms:10}")
+    private long backoffMillis;
+
+    /**
+     * Признак упорядочивания изменений одного пользователя блокировками внутри процесса.
+     */
+    @Value("${store.cart.striped-locks.enabled:true}")
+    private boolean stripedLocksEnabled;
+
+    /**
+     * Количество полос блокировок.
+     */
+    @Value("${store.cart.striped-locks.stripes:64}")
+    private int stripes;
+
+    /**
+     * Транзакция одной попытки.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Блокировки по полосам; пользователь попадает в полосу по своему идентификатору.
+     */
+    private ReentrantLock[] locks;
+
+    /**
+     * Конструктор с указанием менеджера транзакций.
+     *
+     * @param transactionManager менеджер транзакций приложения
+     */
+    public CartMutationExecutor(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Проверяет настройки и создаёт блокировки.
+     *
+     * @throws IllegalStateException если настройки некорректны
+     */
+    @PostConstruct
+    void init() {
+        if (maxAttempts < 1 || stripes < 1 || backoffMillis < 0) {
+            throw new IllegalStateException("Некорректные настройки повторов изменений корзины");
+        }
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Выполняет изменение корзины пользователя. Если транзакция уже открыта вызывающим кодом,
+     * изменение выполняется в ней один раз: повтор возможен только для всей внешней транзакции.
+     *
+     * @param userId идентификатор пользователя
+     * @param mutation изменение
+     * @param <T> тип результата
+     * @return результат изменения
+     * @throws OptimisticLockingFailureException если конфликт сохранился после всех попыток
+     */
+    public <T> T execute(Long userId, Supplier<T> mutation) {
+        ReentrantLock lock = lockFor(userId);
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                return mutation.get();
+            }
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> mutation.get());
+                } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                    if (attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    pause(attempt);
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Выполняет изменение корзины пользователя без результата.
+     *
+     * @param userId идентификатор пользователя
+     * @param mutation изменение
+     */
+    public void run(Long userId, Runnable mutation) {
+        execute(userId, () -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Выполняет действие под блокировкой пользователя без открытия транзакции и без повторов.
+     * Используется корзинами в памяти: оформление заказа держит ту же блокировку до фиксации
+     * или отката своей транзакции, поэтому действие не видит промежуточного состояния корзины.
+     *
+     * @param userId идентификатор пользователя
+     * @param action действие
+     * @param <T> тип результата
+     * @return результат действия
+     */
+    public <T> T withUserLock(Long userId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(userId);
+        if (lock != null) {
+            lock.lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Проверяет, упорядочиваются ли изменения одного пользователя блокировками.
+     *
+     * @return true, если блокировки по полосам включены
+     */
+    public boolean isStripedLocksEnabled() {
+        return stripedLocksEnabled;
+    }
+
+    /**
+     * Возвращает блокировку полосы пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @return блокировка или null, если блокировки выключены
+     */
+    private ReentrantLock lockFor(Long userId) {
+        return stripedLocksEnabled ? locks[Math.floorMod(userId.hashCode(), stripes)] : null;
+    }
+
+    /**
+     * Ждёт перед следующей попыткой: экспоненциальная задержка со случайным разбросом,
+     * чтобы конкурирующие запросы не повторялись одновременно.
+     *
+     * @param attempt номер неудавшейся попытки
+     */
+    private void pause(int attempt) {
+        long delay = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 20));
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание повтора изменения корзины прервано", e);
+        }
+    }
+}
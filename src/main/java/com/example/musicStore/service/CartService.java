@@ -2,15 +2,24 @@ package com.example.musicStore.service;
 
 import com.example.musicStore.model.Cart;
 import com.example.musicStore.model.CartItem;
-import com.example.musicStore.model.Product;
-import com.example.musicStore.model.User;
+import com.example.musicStore.model.CartItemQuantity;
+import com.example.musicStore.model.CartOperation;
+import com.example.musicStore.model.CartView;
+import com.example.musicStore.repository.CartItemRepository;
 import com.example.musicStore.repository.CartRepository;
 import com.example.musicStore.repository.ProductRepository;
 import com.example.musicStore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Сервис для управления корзиной пользователя, включая добавление/удаление продуктов и очистку корзины.
@@ -18,6 +27,16 @@ import java.util.Optional;
 @Service
 public class CartService {
 
+    /**
+     * Максимальное количество одного продукта в корзине.
+     */
+    public static final int MAX_ITEM_QUANTITY = 999;
+
+    /**
+     * Максимальное количество операций в одном пакетном изменении корзины.
+     */
+    public static final int MAX_OPERATIONS = 100;
+
     /**
      * Репозиторий для работы с корзинами.
      */
@@ -30,6 +49,18 @@ public class CartService {
     @Autowired
     private UserRepository userRepository;
 
+    /**
+     * Репозиторий для работы с элементами корзин.
+     */
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    /**
+     * Хранилище корзин с отложенной записью.
+     */
+    @Autowired
+    private WriteBehindCartStore writeBehindCartStore;
+
     /**
      * Репозиторий для работы с продуктами.
      */
@@ -37,21 +68,52 @@ public class CartService {
     private ProductRepository productRepository;
 
     /**
-     * Возвращает корзину пользователя, создавая новую, если она отсутствует.
+     * Пакетная запись изменений корзин.
+     */
+    @Autowired
+    private CartBatchWriter cartBatchWriter;
+
+    /**
+     * Исполнитель изменений корзины с повтором при конфликтах.
+     */
+    @Autowired
+    private CartMutationExecutor cartMutationExecutor;
+
+    /**
+     * Возвращает корзину пользователя для отображения: из памяти, если включена отложенная запись,
+     * иначе из базы данных одним запросом по элементам корзины и продуктам.
+     * Корзина не создаётся: у пользователя без корзины она пуста.
+     *
+     * @param userId идентификатор пользователя
+     * @return корзина пользователя с суммами
+     */
+    public CartView getCartView(Long userId) {
+        if (writeBehindCartStore.isEnabled()) {
+            return writeBehindCartStore.view(userId);
+        }
+        return new CartView(cartRepository.findCartLines(userId));
+    }
+
+    /**
+     * Возвращает корзину пользователя из базы данных, создавая новую, если она отсутствует.
+     * Несохранённые изменения корзины в памяти предварительно записываются в базу данных.
      *
      * @param userId идентификатор пользователя
      * @return корзина пользователя
      */
     public Cart getCartByUser(Long userId) {
         System.out.println("Getting cart for userId: " + userId);
+        writeBehindCartStore.flushUser(userId);
         Optional<Cart> cartOpt = cartRepository.findByUserId(userId);
         if (cartOpt.isEmpty()) {
             System.out.println("Cart not found, creating new cart for userId: " + userId);
-            User user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found"));
-            Cart newCart = new Cart();
-            newCart.setUser(user);
-            Cart savedCart = cartRepository.save(newCart);
+            if (!userRepository.existsById(userId)) {
+                throw new RuntimeException("User not found");
+            }
+            // Одновременное создание корзины в двух запросах не нарушает уникальность carts.user_id
+            cartRepository.createIfAbsent(userId);
+            Cart savedCart = cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new IllegalStateException("Корзина не создана"));
             System.out.println("New cart created with id: " + savedCart.getId());
             return savedCart;
         }
@@ -60,27 +122,198 @@ public class CartService {
     }
 
     /**
-     * Добавляет продукт в корзину пользователя.
+     * Добавляет единицу продукта в корзину пользователя.
      *
      * @param userId идентификатор пользователя
      * @param productId идентификатор продукта
-     * @return обновлённая корзина
+     * @return новое количество продукта в корзине
+     * @throws IllegalArgumentException если продукт не найден
+     */
+    public CartItemQuantity addProductToCart(Long userId, Long productId) {
+        return addProductToCart(userId, productId, 1);
+    }
+
+    /**
+     * Увеличивает количество продукта в корзине пользователя одним оператором INSERT ... ON CONFLICT.
+     * Корзина создаётся только при первом добавлении, когда оператор не нашёл её.
+     * При включённой отложенной записи изменяется корзина в памяти.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @param quantity на сколько увеличить количество
+     * @return новое количество продукта в корзине
+     * @throws IllegalArgumentException если количество некорректно или продукт не найден
+     */
+    public CartItemQuantity addProductToCart(Long userId, Long productId, int quantity) {
+        if (quantity < 1 || quantity > MAX_ITEM_QUANTITY) {
+            throw new IllegalArgumentException("Количество должно быть от 1 до " + MAX_ITEM_QUANTITY);
+        }
+        if (writeBehindCartStore.isEnabled()) {
+            return writeBehindCartStore.add(userId, productId, quantity, MAX_ITEM_QUANTITY);
+        }
+        return cartMutationExecutor.execute(userId, () -> {
+            try {
+                Integer result = cartItemRepository.addQuantity(userId, productId, quantity, MAX_ITEM_QUANTITY);
+                if (result == null) {
+                    cartRepository.createIfAbsent(userId);
+                    result = cartItemRepository.addQuantity(userId, productId, quantity, MAX_ITEM_QUANTITY);
+                }
+                return new CartItemQuantity(productId, result);
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalArgumentException("Продукт не найден: " + productId);
+            }
+        });
+    }
+
+    /**
+     * Устанавливает точное количество продукта в корзине пользователя; при нулевом количестве продукт удаляется.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @param quantity новое количество
+     * @return установленное количество продукта в корзине
+     * @throws IllegalArgumentException если количество некорректно или продукт не найден
+     */
+    public CartItemQuantity setProductQuantity(Long userId, Long productId, int quantity) {
+        if (quantity < 0 || quantity > MAX_ITEM_QUANTITY) {
+            throw new IllegalArgumentException("Количество должно быть от 0 до " + MAX_ITEM_QUANTITY);
+        }
+        if (writeBehindCartStore.isEnabled()) {
+            return writeBehindCartStore.set(userId, productId, quantity);
+        }
+        return cartMutationExecutor.execute(userId, () -> {
+            if (quantity == 0) {
+                cartItemRepository.deleteByUserIdAndProductId(userId, productId);
+                return new CartItemQuantity(productId, 0);
+            }
+            try {
+                Integer result = cartItemRepository.setQuantity(userId, productId, quantity);
+                if (result == null) {
+                    cartRepository.createIfAbsent(userId);
+                    result = cartItemRepository.setQuantity(userId, productId, quantity);
+                }
+                return new CartItemQuantity(productId, result);
+            } catch (DataIntegrityViolationException e) {
+                throw new IllegalArgumentException("Продукт не найден: " + productId);
+            }
+        });
+    }
+
+    /**
+     * Применяет к корзине пользователя список операций одной транзакцией.
+     * Операции над одним продуктом сводятся к одному изменению, после чего увеличения количества,
+     * установленные количества и удаления записываются тремя пакетами операторов, а корзина читается
+     * одним запросом; число запросов не зависит от количества операций.
+     *
+     * @param userId идентификатор пользователя
+     * @param operations операции в порядке применения
+     * @return корзина после изменения
+     * @throws IllegalArgumentException если операция некорректна или продукт не найден
      */
-    public Cart addProductToCart(Long userId, Long productId) {
-        System.out.println("Adding productId: " + productId + " to cart for userId: " + userId);
-        Cart cart = getCartByUser(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-        System.out.println("Product found: " + product.getName());
-        cart.getProducts().add(product);
-        System.out.println("Product added to cart, saving cart...");
-        // Добавляем товар в корзину (логика увеличения количества уже в Cart.addProduct)
-        cart.addProduct(product);
-        System.out.println("Product added to cart, saving cart...");
-
-        Cart savedCart = cartRepository.save(cart);
-        System.out.println("Cart saved successfully with id: " + savedCart.getId());
-        return savedCart;
+    public CartView applyOperations(Long userId, List<CartOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("Список операций пуст");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Не более " + MAX_OPERATIONS + " операций за один запрос");
+        }
+        Map<Long, Integer> increments = new LinkedHashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartOperation operation : operations) {
+            Long productId = operation.getProductId();
+            if (productId == null) {
+                throw new IllegalArgumentException("Не указан идентификатор продукта");
+            }
+            String op = operation.getOp() == null ? "" : operation.getOp().toLowerCase(Locale.ROOT);
+            switch (op) {
+                case "add": {
+                    int quantity = operation.getQuantity() == null ? 1 : operation.getQuantity();
+                    if (quantity < 1 || quantity > MAX_ITEM_QUANTITY) {
+                        throw new IllegalArgumentException("Количество должно быть от 1 до " + MAX_ITEM_QUANTITY);
+                    }
+                    if (quantities.containsKey(productId)) {
+                        quantities.put(productId, Math.min(quantities.get(productId) + quantity, MAX_ITEM_QUANTITY));
+                    } else {
+                        increments.merge(productId, quantity, (a, b) -> Math.min(a + b, MAX_ITEM_QUANTITY));
+                    }
+                    break;
+                }
+                case "set": {
+                    Integer quantity = operation.getQuantity();
+                    if (quantity == null || quantity < 0 || quantity > MAX_ITEM_QUANTITY) {
+                        throw new IllegalArgumentException("Количество должно быть от 0 до " + MAX_ITEM_QUANTITY);
+                    }
+                    increments.remove(productId);
+                    quantities.put(productId, quantity);
+                    break;
+                }
+                case "remove":
+                    increments.remove(productId);
+                    quantities.put(productId, 0);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Неизвестная операция: " + operation.getOp());
+            }
+        }
+
+        if (writeBehindCartStore.isEnabled()) {
+            return cartMutationExecutor.withUserLock(userId, () -> {
+                quantities.forEach((productId, quantity) -> writeBehindCartStore.set(userId, productId, quantity));
+                increments.forEach((productId, quantity) ->
+                        writeBehindCartStore.add(userId, productId, quantity, MAX_ITEM_QUANTITY));
+                return writeBehindCartStore.view(userId);
+            });
+        }
+
+        Set<Long> added = new HashSet<>(increments.keySet());
+        quantities.forEach((productId, quantity) -> {
+            if (quantity > 0) {
+                added.add(productId);
+            }
+        });
+        return cartMutationExecutor.execute(userId, () -> {
+            if (!added.isEmpty()) {
+                Set<Long> found = new HashSet<>();
+                productRepository.findAllById(added).forEach(product -> found.add(product.getId()));
+                if (found.size() < added.size()) {
+                    added.removeAll(found);
+                    throw new IllegalArgumentException("Продукты не найдены: " + added);
+                }
+            }
+            if (!quantities.isEmpty()) {
+                cartBatchWriter.setQuantities(Map.of(userId, quantities));
+            }
+            cartBatchWriter.increment(userId, increments, MAX_ITEM_QUANTITY);
+            return new CartView(cartRepository.findCartLines(userId));
+        });
+    }
+
+    /**
+     * Переносит гостевую корзину в постоянную корзину пользователя: количества складываются
+     * с уже имеющимися одним пакетом операторов INSERT ... ON CONFLICT. Продукты, удалённые
+     * из каталога после добавления в гостевую корзину, пропускаются.
+     *
+     * @param userId идентификатор пользователя
+     * @param guestCart количества по идентификатору продукта
+     */
+    public void mergeGuestCart(Long userId, Map<Long, Integer> guestCart) {
+        if (guestCart.isEmpty()) {
+            return;
+        }
+        if (writeBehindCartStore.isEnabled()) {
+            cartMutationExecutor.withUserLock(userId, () -> {
+                guestCart.forEach((productId, quantity) -> {
+                    try {
+                        writeBehindCartStore.add(userId, productId, quantity, MAX_ITEM_QUANTITY);
+                    } catch (IllegalArgumentException e) {
+                        // Товар удалён из каталога — пропускается, как и при переносе через БД
+                    }
+                });
+                return null;
+            });
+            return;
+        }
+        cartMutationExecutor.run(userId, () -> cartBatchWriter.increment(userId, guestCart, MAX_ITEM_QUANTITY));
     }
 
     /**
@@ -92,24 +325,29 @@ public class CartService {
      */
     public Cart removeProductFromCart(Long userId, Long cartItemId) {
         System.out.println("Removing cartItemId: " + cartItemId + " from cart for userId: " + userId);
-        Cart cart = getCartByUser(userId);
-        CartItem itemToRemove = cart.getItems().stream()
-                .filter(item -> item.getId().equals(cartItemId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Cart item not found"));
-        cart.getItems().remove(itemToRemove);
-        return cartRepository.save(cart);
+        return cartMutationExecutor.execute(userId, () -> {
+            Cart cart = getCartByUser(userId);
+            CartItem itemToRemove = cart.getItems().stream()
+                    .filter(item -> item.getId().equals(cartItemId))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Cart item not found"));
+            cart.getItems().remove(itemToRemove);
+            return cartRepository.save(cart);
+        });
     }
 
     /**
-     * Очищает корзину пользователя.
+     * Очищает корзину пользователя. Удаляются только прочитанные элементы корзины, поэтому товар,
+     * добавленный одновременно с очисткой, остаётся в корзине.
      *
      * @param userId идентификатор пользователя
      */
     public void clearCart(Long userId) {
         System.out.println("Clearing cart for userId: " + userId);
-        Cart cart = getCartByUser(userId);
-        cart.clearProducts();
-        cartRepository.save(cart);
+        cartMutationExecutor.run(userId, () -> {
+            Cart cart = getCartByUser(userId);
+            cart.clearProducts();
+            cartRepository.save(cart);
+        });
     }
 }
\ No newline at end of file
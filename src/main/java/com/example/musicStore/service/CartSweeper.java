@@ -0,0 +1,178 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CartSweepStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая очистка заброшенных корзин.
+ * Корзина считается заброшенной, если она создана раньше заданного срока и ни один её элемент
+ * не менялся в течение этого срока. Таблица carts просматривается по первичному ключу окнами
+ * фиксированного размера; заброшенные корзины окна удаляются вместе с элементами и строками
+ * устаревшей таблицы cart_products одним оператором, между окнами делается пауза.
+ * Заблокированные другими транзакциями корзины пропускаются до следующего прохода, удалённые корзины
+ * выгружаются из {@link WriteBehindCartStore}.
+ */
+@Component
+public class CartSweeper {
+
+    /**
+     * Верхняя граница очередного окна: наибольший идентификатор среди следующих N корзин.
+     */
+    private static final String WINDOW_SQL =
+            "SELECT max(id) FROM (SELECT id FROM carts WHERE id > ? ORDER BY id LIMIT ?) w";
+
+    /**
+     * Удаление заброшенных корзин окна; возвращает количество удалённых корзин, элементов и строк cart_products
+     * и идентификаторы владельцев удалённых корзин.
+     */
+    private static final String SWEEP_SQL =
+            "WITH stale AS (" +
+            "  SELECT c.id FROM carts c" +
+            "  WHERE c.id > ? AND c.id <= ? AND c.created_at < now() - ? * interval '1 day'" +
+            "    AND NOT EXISTS (SELECT 1 FROM cart_items ci" +
+            "                    WHERE ci.cart_id = c.id AND ci.updated_at >= now() - ? * interval '1 day')" +
+            "  FOR UPDATE SKIP LOCKED" +
+            "), items AS (DELETE FROM cart_items WHERE cart_id IN (SELECT id FROM stale) RETURNING 1)" +
+            ", legacy AS (DELETE FROM cart_products WHERE cart_id IN (SELECT id FROM stale) RETURNING 1)" +
+            ", removed AS (DELETE FROM carts WHERE id IN (SELECT id FROM stale) RETURNING user_id)" +
+            " SELECT (SELECT count(*) FROM removed), (SELECT count(*) FROM items), (SELECT count(*) FROM legacy)," +
+            " (SELECT array_agg(user_id) FROM removed)";
+
+    /**
+     * Признак включения очистки.
+     */
+    @Value("${store.cart-sweeper.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Срок бездействия в днях, после которого корзина удаляется.
+     */
+    @Value("${store.cart-sweeper.max-idle-days:30}")
+    private int maxIdleDays;
+
+    /**
+     * Количество корзин в одном окне просмотра.
+     */
+    @Value("${store.cart-sweeper.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Пауза между окнами в миллисекундах.
+     */
+    @Value("${store.cart-sweeper.pause-ms:200}")
+    private long pauseMillis;
+
+    /**
+     * Выполнение операторов JDBC.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Корзины в памяти при отложенной записи.
+     */
+    @Autowired
+    private WriteBehindCartStore writeBehindCartStore;
+
+    /**
+     * Количество выполненных проходов.
+     */
+    private final AtomicLong runs = new AtomicLong();
+
+    /**
+     * Количество обработанных окон.
+     */
+    private final AtomicLong chunks = new AtomicLong();
+
+    /**
+     * Количество удалённых корзин.
+     */
+    private final AtomicLong cartsDeleted = new AtomicLong();
+
+    /**
+     * Количество удалённых элементов корзин.
+     */
+    private final AtomicLong itemsDeleted = new AtomicLong();
+
+    /**
+     * Количество удалённых строк устаревшей таблицы cart_products.
+     */
+    private final AtomicLong legacyRowsDeleted = new AtomicLong();
+
+    /**
+     * Суммарная длительность проходов в миллисекундах.
+     */
+    private final AtomicLong totalMillis = new AtomicLong();
+
+    /**
+     * Длительность последнего прохода в миллисекундах.
+     */
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    /**
+     * Выполняет проход очистки по расписанию.
+     */
+    @Scheduled(fixedDelayString = "${store.cart-sweeper.interval-ms:3600000}",
+            initialDelayString = "${store.cart-sweeper.initial-delay-ms:300000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Long upToId = jdbcTemplate.queryForObject(WINDOW_SQL, Long.class, afterId, chunkSize);
+                if (upToId == null) {
+                    break;
+                }
+                List<Long> removedUserIds = new ArrayList<>();
+                long[] counts = jdbcTemplate.queryForObject(SWEEP_SQL, (rs, rowNum) -> {
+                    Array userIds = rs.getArray(4);
+                    if (userIds != null) {
+                        removedUserIds.addAll(Arrays.asList((Long[]) userIds.getArray()));
+                    }
+                    return new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)};
+                }, afterId, upToId, maxIdleDays, maxIdleDays);
+                writeBehindCartStore.evict(removedUserIds);
+                chunks.incrementAndGet();
+                cartsDeleted.addAndGet(counts[0]);
+                itemsDeleted.addAndGet(counts[1]);
+                legacyRowsDeleted.addAndGet(counts[2]);
+                afterId = upToId;
+                if (pauseMillis > 0) {
+                    Thread.sleep(pauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            long elapsed = System.currentTimeMillis() - started;
+            runs.incrementAndGet();
+            totalMillis.addAndGet(elapsed);
+            lastRunMillis.set(elapsed);
+        }
+    }
+
+    /**
+     * Возвращает снимок статистики очистки.
+     *
+     * @return статистика очистки
+     */
+    public CartSweepStats getStats() {
+        return new CartSweepStats(runs.get(), chunks.get(), cartsDeleted.get(), itemsDeleted.get(),
+                legacyRowsDeleted.get(), totalMillis.get(), lastRunMillis.get());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.musicStore.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счётчик версии каталога, по которому строятся ETag ответов публичного API продуктов.
+ * Начальное значение берётся из времени запуска, чтобы ETag, выданные до перезапуска приложения, не совпали с новыми.
+ */
+@Component
+public class CatalogVersion {
+
+    /**
+     * Текущая версия каталога.
+     */
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Возвращает текущую версию каталога.
+     *
+     * @return версия каталога
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Возвращает сильный ETag для текущей версии каталога.
+     *
+     * @return значение ETag в кавычках
+     */
+    public String etag() {
+        return "\"catalog-" + version.get() + "\"";
+    }
+
+    /**
+     * Увеличивает версию каталога сразу. Вызывается после того, как кэши и индексы каталога
+     * уже отражают изменение.
+     */
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Увеличивает версию каталога после фиксации текущей транзакции,
+     * либо сразу, если транзакция не активна.
+     */
+    public void bumpAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump();
+                }
+            });
+        } else {
+            bump();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CheckoutStatus;
+import com.example.musicStore.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь асинхронного оформления заказов.
+ * Запрос на оформление только ставит заявку в ограниченную очередь и сразу получает ссылку на неё,
+ * а заказы создаёт фиксированное число рабочих потоков: каждый забирает из очереди по одной заявке
+ * и оформляет её в отдельной транзакции, поэтому оформление занимает не больше workers соединений с базой данных
+ * при любом количестве одновременных запросов. Если очередь заполнена, заявка не принимается.
+ * Состояние заявок хранится в памяти: при перезапуске необработанные заявки теряются, корзины при этом
+ * не изменяются и заказ можно оформить повторно.
+ * Режим включается свойством store.checkout.async.enabled.
+ */
+@Service
+public class CheckoutQueue {
+
+    /**
+     * Время ожидания заявки рабочим потоком в миллисекундах; ограничивает задержку остановки.
+     */
+    private static final long POLL_MILLIS = 500;
+
+    /**
+     * Признак включения асинхронного оформления.
+     */
+    @Value("${store.checkout.async.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Ёмкость очереди заявок.
+     */
+    @Value("${store.checkout.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * Количество рабочих потоков.
+     */
+    @Value("${store.checkout.async.workers:4}")
+    private int workers;
+
+    /**
+     * Время хранения состояния завершённой заявки в миллисекундах.
+     */
+    @Value("${store.checkout.async.result-ttl-ms:600000}")
+    private long resultTtlMillis;
+
+    /**
+     * Сервис для работы с заказами.
+     */
+    @Autowired
+    private OrderService orderService;
+
+    /**
+     * Заявки, ожидающие обработки.
+     */
+    private BlockingQueue<CheckoutJob> queue;
+
+    /**
+     * Заявки по ссылке, включая завершённые в пределах времени хранения.
+     */
+    private final Map<String, CheckoutJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Незавершённая заявка каждого пользователя; повторное нажатие возвращает её же.
+     */
+    private final Map<Long, CheckoutJob> activeByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Рабочие потоки.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Признак работы рабочих потоков.
+     */
+    private volatile boolean running;
+
+    /**
+     * Проверяет настройки и запускает рабочие потоки.
+     *
+     * @throws IllegalStateException если настройки некорректны
+     */
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        if (queueCapacity < 1 || workers < 1 || resultTtlMillis < 0) {
+            throw new IllegalStateException("Некорректные настройки асинхронного оформления заказов");
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, task -> {
+            Thread thread = new Thread(task, "checkout-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    /**
+     * Проверяет, включено ли асинхронное оформление.
+     *
+     * @return true, если заказы оформляются через очередь
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит оформление заказа пользователя в очередь. Если у пользователя уже есть незавершённая заявка,
+     * возвращается её состояние.
+     *
+     * @param userId идентификатор пользователя
+     * @param idempotencyKey ключ идемпотентности заказа или null
+     * @return состояние заявки или null, если очередь заполнена
+     * @throws IllegalStateException если асинхронное оформление выключено
+     */
+    public CheckoutStatus submit(Long userId, String idempotencyKey) {
+        if (!enabled) {
+            throw new IllegalStateException("Асинхронное оформление заказов выключено");
+        }
+        CheckoutJob job = new CheckoutJob(UUID.randomUUID().toString(), userId, idempotencyKey);
+        CheckoutJob active = activeByUser.putIfAbsent(userId, job);
+        if (active != null) {
+            return active.status();
+        }
+        jobs.put(job.reference, job);
+        if (!queue.offer(job)) {
+            jobs.remove(job.reference);
+            activeByUser.remove(userId, job);
+            return null;
+        }
+        return job.status();
+    }
+
+    /**
+     * Возвращает состояние заявки пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @param reference ссылка на заявку
+     * @return состояние заявки или null, если заявка не найдена или принадлежит другому пользователю
+     */
+    public CheckoutStatus getStatus(Long userId, String reference) {
+        CheckoutJob job = jobs.get(reference);
+        return job == null || !job.userId.equals(userId) ? null : job.status();
+    }
+
+    /**
+     * Возвращает количество заявок, ожидающих обработки.
+     *
+     * @return длина очереди
+     */
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Удаляет состояние заявок, завершённых раньше времени хранения.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinished() {
+        long threshold = System.currentTimeMillis() - resultTtlMillis;
+        jobs.values().removeIf(job -> job.finishedAt != 0 && job.finishedAt < threshold);
+    }
+
+    /**
+     * Останавливает рабочие потоки, дожидаясь завершения заявок, которые уже оформляются.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        running = false;
+        executor.shutdown();
+        try {
+            // Заявки, не оформленные за это время, теряются так же, как при перезапуске
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Цикл рабочего потока: забирает заявки из очереди по одной и оформляет их.
+     */
+    private void work() {
+        while (running) {
+            try {
+                CheckoutJob job = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (job != null) {
+                    process(job);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Оформляет заказ по заявке в отдельной транзакции и записывает результат.
+     *
+     * @param job заявка
+     */
+    private void process(CheckoutJob job) {
+        job.state = CheckoutStatus.State.PROCESSING;
+        try {
+            Order order = orderService.createOrder(job.userId, job.idempotencyKey);
+            job.orderId = order.getId();
+            job.state = CheckoutStatus.State.COMPLETED;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            job.message = e.getMessage();
+            job.state = CheckoutStatus.State.FAILED;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            job.message = "Ошибка при оформлении заказа";
+            job.state = CheckoutStatus.State.FAILED;
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            activeByUser.remove(job.userId, job);
+        }
+    }
+
+    /**
+     * Заявка на оформление заказа. Изменяется только рабочим потоком, читается потоками запросов.
+     */
+    private static final class CheckoutJob {
+
+        /**
+         * Ссылка на заявку.
+         */
+        private final String reference;
+
+        /**
+         * Идентификатор пользователя.
+         */
+        private final Long userId;
+
+        /**
+         * Ключ идемпотентности заказа или null.
+         */
+        private final String idempotencyKey;
+
+        /**
+         * Текущий этап оформления.
+         */
+        private volatile CheckoutStatus.State state = CheckoutStatus.State.PENDING;
+
+        /**
+         * Идентификатор созданного заказа.
+         */
+        private volatile Long orderId;
+
+        /**
+         * Причина ошибки.
+         */
+        private volatile String message;
+
+        /**
+         * Время завершения в миллисекундах или 0, пока заявка не завершена.
+         */
+        private volatile long finishedAt;
+
+        /**
+         * Конструктор с указанием ссылки, пользователя и ключа идемпотентности.
+         *
+         * @param reference ссылка на заявку
+         * @param userId идентификатор пользователя
+         * @param idempotencyKey ключ идемпотентности заказа или null
+         */
+        private CheckoutJob(String reference, Long userId, String idempotencyKey) {
+            this.reference = reference;
+            this.userId = userId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        /**
+         * Возвращает снимок состояния заявки.
+         *
+         * @return состояние заявки
+         */
+        private CheckoutStatus status() {
+            return new CheckoutStatus(reference, state, orderId, message);
+        }
+    }
+}
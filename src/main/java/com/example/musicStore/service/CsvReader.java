@@ -0,0 +1,99 @@
+package com.example.musicStore.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV по RFC 4180: поля в кавычках могут содержать запятые, переводы строк
+ * и удвоенные кавычки. Строки читаются по одной, файл целиком в память не загружается.
+ */
+final class CsvReader {
+
+    /**
+     * Источник символов.
+     */
+    private final Reader reader;
+
+    /**
+     * Символ, прочитанный заранее, или -2, если его нет.
+     */
+    private int pushedBack = -2;
+
+    /**
+     * Конструктор с указанием источника.
+     *
+     * @param reader источник символов, желательно буферизованный
+     */
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Читает следующую запись.
+     *
+     * @return поля записи или null, если данные закончились
+     * @throws IOException если чтение не удалось или кавычка не закрыта
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Незакрытая кавычка в CSV");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Читает следующий символ с учётом возвращённого.
+     *
+     * @return символ или -1 в конце данных
+     * @throws IOException если чтение не удалось
+     */
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
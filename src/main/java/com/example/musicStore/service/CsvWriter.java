@@ -0,0 +1,82 @@
+package com.example.musicStore.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Потоковая запись CSV по RFC 4180: поля с запятыми, кавычками и переводами строк заключаются в кавычки,
+ * кавычки внутри поля удваиваются, записи разделяются CRLF. Пара к {@link CsvReader}.
+ */
+final class CsvWriter {
+
+    /**
+     * Приёмник символов.
+     */
+    private final Writer writer;
+
+    /**
+     * Конструктор с указанием приёмника.
+     *
+     * @param writer приёмник символов, желательно буферизованный
+     */
+    CsvWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Записывает запись; null записывается как пустое поле.
+     *
+     * @param fields поля записи
+     * @throws IOException если запись не удалась
+     */
+    void write(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (fields[i] != null) {
+                writeField(fields[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Защищает текстовое значение от выполнения как формулы в табличном редакторе:
+     * значение, начинающееся с =, +, -, @, табуляции или возврата каретки, предваряется апострофом.
+     *
+     * @param value текстовое значение или null
+     * @return безопасное значение или null
+     */
+    static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    /**
+     * Записывает поле, при необходимости в кавычках.
+     *
+     * @param field значение поля
+     * @throws IOException если запись не удалась
+     */
+    private void writeField(String field) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < field.length() && !quoted; i++) {
+            char c = field.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CartItemQuantity;
+import com.example.musicStore.model.CartLine;
+import com.example.musicStore.model.CartView;
+import com.example.musicStore.model.Product;
+import com.example.musicStore.model.ProductSummary;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис гостевой корзины для неавторизованных посетителей.
+ * Состояние корзины целиком хранится в подписанной cookie: пары "продукт:количество", закодированные
+ * в Base64url, и подпись HMAC-SHA256. Сервер не хранит гостевые корзины и не пишет в базу данных;
+ * при входе корзина переносится в постоянную корзину пользователя.
+ */
+@Service
+public class GuestCartService {
+
+    /**
+     * Имя cookie гостевой корзины.
+     */
+    public static final String COOKIE_NAME = "guest_cart";
+
+    /**
+     * Максимальное количество разных продуктов в гостевой корзине.
+     */
+    public static final int MAX_ITEMS = 50;
+
+    /**
+     * Длина подписи в байтах (первые 128 бит HMAC-SHA256).
+     */
+    private static final int SIGNATURE_LENGTH = 16;
+
+    /**
+     * Алгоритм подписи.
+     */
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * Секрет подписи; если не задан, создаётся случайный при запуске и гостевые корзины
+     * не переживают перезапуск приложения.
+     */
+    @Value("${store.guest-cart.secret:}")
+    private String secret;
+
+    /**
+     * Срок жизни cookie гостевой корзины в днях.
+     */
+    @Value("${store.guest-cart.max-age-days:30}")
+    private int maxAgeDays;
+
+    /**
+     * Признак отправки cookie только по HTTPS.
+     */
+    @Value("${store.guest-cart.secure-cookie:false}")
+    private boolean secureCookie;
+
+    /**
+     * Сервис для работы с продуктами.
+     */
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Ключ подписи.
+     */
+    private SecretKeySpec key;
+
+    /**
+     * Создаёт ключ подписи.
+     */
+    @PostConstruct
+    void init() {
+        byte[] bytes;
+        if (secret == null || secret.isBlank()) {
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+        } else {
+            bytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    /**
+     * Разбирает значение cookie гостевой корзины.
+     *
+     * @param value значение cookie или null
+     * @return количества по идентификатору продукта в порядке добавления; пустая корзина,
+     *         если cookie нет, подпись неверна или содержимое некорректно
+     */
+    public Map<Long, Integer> decode(String value) {
+        Map<Long, Integer> cart = new LinkedHashMap<>();
+        if (value == null || value.isEmpty()) {
+            return cart;
+        }
+        int dot = value.indexOf('.');
+        if (dot <= 0) {
+            return cart;
+        }
+        String payload = value.substring(0, dot);
+        byte[] signature;
+        byte[] content;
+        try {
+            signature = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+            content = Base64.getUrlDecoder().decode(payload);
+        } catch (IllegalArgumentException e) {
+            return cart;
+        }
+        if (!MessageDigest.isEqual(signature, sign(payload))) {
+            return cart;
+        }
+        String text = new String(content, StandardCharsets.US_ASCII);
+        if (text.isEmpty()) {
+            return cart;
+        }
+        try {
+            for (String pair : text.split(",")) {
+                int colon = pair.indexOf(':');
+                long productId = Long.parseLong(pair.substring(0, colon));
+                int quantity = Integer.parseInt(pair.substring(colon + 1));
+                if (quantity < 1 || quantity > CartService.MAX_ITEM_QUANTITY || cart.size() >= MAX_ITEMS) {
+                    return new LinkedHashMap<>();
+                }
+                cart.put(productId, quantity);
+            }
+        } catch (RuntimeException e) {
+            return new LinkedHashMap<>();
+        }
+        return cart;
+    }
+
+    /**
+     * Создаёт cookie с гостевой корзиной; для пустой корзины — cookie, удаляющую её в браузере.
+     *
+     * @param cart количества по идентификатору продукта
+     * @return cookie для заголовка Set-Cookie
+     */
+    public ResponseCookie cookie(Map<Long, Integer> cart) {
+        if (cart.isEmpty()) {
+            return baseCookie("").maxAge(Duration.ZERO).build();
+        }
+        StringBuilder text = new StringBuilder();
+        cart.forEach((productId, quantity) -> {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(productId).append(':').append(quantity);
+        });
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(text.toString().getBytes(StandardCharsets.US_ASCII));
+        String value = payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payload));
+        return baseCookie(value).maxAge(Duration.ofDays(maxAgeDays)).build();
+    }
+
+    /**
+     * Увеличивает количество продукта в гостевой корзине.
+     *
+     * @param cart гостевая корзина, изменяется на месте
+     * @param productId идентификатор продукта
+     * @param quantity на сколько увеличить количество
+     * @return новое количество продукта
+     * @throws IllegalArgumentException если количество некорректно, продукт не найден или корзина заполнена
+     */
+    public CartItemQuantity add(Map<Long, Integer> cart, Long productId, int quantity) {
+        if (quantity < 1 || quantity > CartService.MAX_ITEM_QUANTITY) {
+            throw new IllegalArgumentException("Количество должно быть от 1 до " + CartService.MAX_ITEM_QUANTITY);
+        }
+        return set(cart, productId, Math.min(cart.getOrDefault(productId, 0) + quantity, CartService.MAX_ITEM_QUANTITY));
+    }
+
+    /**
+     * Устанавливает точное количество продукта в гостевой корзине; 0 удаляет продукт.
+     *
+     * @param cart гостевая корзина, изменяется на месте
+     * @param productId идентификатор продукта
+     * @param quantity новое количество
+     * @return установленное количество
+     * @throws IllegalArgumentException если количество некорректно, продукт не найден или корзина заполнена
+     */
+    public CartItemQuantity set(Map<Long, Integer> cart, Long productId, int quantity) {
+        if (quantity < 0 || quantity > CartService.MAX_ITEM_QUANTITY) {
+            throw new IllegalArgumentException("Количество должно быть от 0 до " + CartService.MAX_ITEM_QUANTITY);
+        }
+        if (quantity == 0) {
+            cart.remove(productId);
+            return new CartItemQuantity(productId, 0);
+        }
+        if (productService.getProductById(productId) == null) {
+            throw new IllegalArgumentException("Продукт не найден: " + productId);
+        }
+        if (!cart.containsKey(productId) && cart.size() >= MAX_ITEMS) {
+            throw new IllegalArgumentException("В гостевой корзине не более " + MAX_ITEMS + " разных товаров");
+        }
+        cart.put(productId, quantity);
+        return new CartItemQuantity(productId, quantity);
+    }
+
+    /**
+     * Собирает гостевую корзину для отображения; продукты берутся из кэша каталога.
+     *
+     * @param cart гостевая корзина
+     * @return корзина с суммами
+     */
+    public CartView view(Map<Long, Integer> cart) {
+        List<CartLine> lines = new ArrayList<>(cart.size());
+        cart.forEach((productId, quantity) -> {
+            Product product = productService.getProductById(productId);
+            if (product != null) {
+                lines.add(new CartLine(new ProductSummary(product.getId(), product.getName(),
+                        product.getImage(), product.getPrice()), quantity));
+            }
+        });
+        return new CartView(lines);
+    }
+
+    /**
+     * Начинает построение cookie гостевой корзины с общими атрибутами.
+     *
+     * @param value значение cookie
+     * @return построитель cookie
+     */
+    private ResponseCookie.ResponseCookieBuilder baseCookie(String value) {
+        return ResponseCookie.from(COOKIE_NAME, value)
+                .path("/")
+                .httpOnly(true)
+                .secure(secureCookie)
+                .sameSite("Lax");
+    }
+
+    /**
+     * Вычисляет подпись содержимого cookie.
+     *
+     * @param payload содержимое в Base64url
+     * @return подпись
+     */
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)), SIGNATURE_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.musicStore.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Сервис ключей идемпотентности (заголовок Idempotency-Key).
+ * Первый запрос с ключом выполняется, а его ответ сохраняется в ограниченном кэше с временем жизни;
+ * повторы с тем же ключом получают сохранённый ответ без повторного выполнения. Вместе с ответом хранится
+ * отпечаток запроса (метод, путь, параметры и тело), и ключ, повторно использованный для другого запроса,
+ * отклоняется с кодом 422.
+ * Ответы 5xx и исключения не сохраняются, чтобы такой запрос можно было повторить.
+ * Кэш локален для процесса; для оформления заказа дополнительно действует уникальное ограничение
+ * на ключ в таблице заказов.
+ */
+@Service
+public class IdempotencyService {
+
+    /**
+     * Имя заголовка с ключом идемпотентности.
+     */
+    public static final String HEADER = "Idempotency-Key";
+
+    /**
+     * Максимальная длина ключа.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Максимальное количество сохранённых ответов.
+     */
+    @Value("${store.idempotency.max-keys:10000}")
+    private int maxKeys;
+
+    /**
+     * Время хранения ответа в миллисекундах.
+     */
+    @Value("${store.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    /**
+     * Преобразователь JSON приложения; тело запроса входит в отпечаток в том виде, в каком его разобрал контроллер.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Запросы и их ответы по области действия и ключу.
+     */
+    private TtlCache<String, StoredRequest> responses;
+
+    /**
+     * Создаёт кэш ответов.
+     */
+    @PostConstruct
+    void init() {
+        responses = new TtlCache<>("idempotency-keys", maxKeys, ttlMillis);
+    }
+
+    /**
+     * Выполняет запрос не более одного раза для пары (область действия, ключ).
+     * Без ключа запрос выполняется как обычно. Если ключ уже использован для запроса с другим отпечатком,
+     * возвращается 422; если запрос с тем же ключом ещё выполняется — 409.
+     *
+     * @param scope область действия ключа: пользователь
+     * @param key значение заголовка Idempotency-Key или null
+     * @param request текущий запрос
+     * @param body разобранное тело запроса или null, если тела нет
+     * @param action выполнение запроса
+     * @return ответ на запрос, сохранённый или полученный сейчас
+     */
+    public ResponseEntity<?> execute(String scope, String key, HttpServletRequest request, Object body,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Ключ " + HEADER + " должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+        String cacheKey = scope + '\n' + key;
+        StoredRequest pending = new StoredRequest(fingerprint(request, body));
+        StoredRequest stored = responses.putIfAbsent(cacheKey, pending);
+        if (stored != null) {
+            if (!stored.fingerprint.equals(pending.fingerprint)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body("Ключ " + HEADER + " уже использован для другого запроса");
+            }
+            ResponseEntity<?> response = stored.response.getNow(null);
+            return response != null ? response : ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Запрос с этим ключом " + HEADER + " ещё выполняется");
+        }
+        ResponseEntity<?> response = null;
+        try {
+            response = action.get();
+            return response;
+        } finally {
+            if (response == null || response.getStatusCode().is5xxServerError()) {
+                responses.invalidate(cacheKey);
+                response = null;
+            }
+            pending.response.complete(response);
+        }
+    }
+
+    /**
+     * Вычисляет отпечаток запроса: SHA-256 метода, пути, строки параметров и тела в JSON.
+     *
+     * @param request текущий запрос
+     * @param body разобранное тело запроса или null
+     * @return отпечаток в шестнадцатеричном виде
+     */
+    private String fingerprint(HttpServletRequest request, Object body) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        String query = request.getQueryString() == null ? "" : request.getQueryString();
+        sha.update((request.getMethod() + '\n' + request.getRequestURI() + '\n' + query + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+        if (body != null) {
+            try {
+                objectMapper.writeValue(new DigestOutputStream(OutputStream.nullOutputStream(), sha), body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Запрос с ключом идемпотентности: отпечаток и ответ, незавершённый, пока запрос выполняется.
+     */
+    private static final class StoredRequest {
+
+        private final String fingerprint;
+
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        private StoredRequest(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
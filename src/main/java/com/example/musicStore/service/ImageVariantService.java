@@ -0,0 +1,383 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.ImageVariants;
+import com.example.musicStore.model.Product;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис уменьшенных копий изображений продуктов.
+ * Копия каждой ширины строится один раз при первом запросе и сохраняется в дисковый кэш,
+ * после чего отдаётся прямо из файла. Имя файла в кэше содержит версию исходника,
+ * поэтому после замены изображения копии строятся заново, а удалённый из кэша файл строится повторно
+ * при следующем запросе. Одну копию строит один поток, остальные запросы той же копии ждут его результата.
+ * Копии всегда сохраняются в JPEG: прозрачные области заливаются белым цветом фона карточек каталога,
+ * что для миниатюр даёт файлы в несколько раз меньше PNG.
+ */
+@Service
+public class ImageVariantService {
+
+    /**
+     * Расположение исходных изображений.
+     */
+    @Value("${store.images.source-location:classpath:static/images/}")
+    private String sourceLocation;
+
+    /**
+     * Каталог дискового кэша уменьшенных копий.
+     */
+    @Value("${store.images.cache-dir:${java.io.tmpdir}/music-store-images}")
+    private String cacheDir;
+
+    /**
+     * Качество сжатия JPEG (от 0 до 1).
+     */
+    @Value("${store.images.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    /**
+     * Загрузчик ресурсов для поиска исходных изображений.
+     */
+    @Autowired
+    private ResourcePatternResolver resourceResolver;
+
+    /**
+     * Исходные изображения по имени файла.
+     */
+    private Map<String, SourceImage> sources = Map.of();
+
+    /**
+     * Построенные и строящиеся копии по ключу "ширина/версия/имя".
+     */
+    private final Map<String, CompletableFuture<VariantFile>> variants = new ConcurrentHashMap<>();
+
+    /**
+     * Находит исходные изображения и вычисляет их версии.
+     *
+     * @throws IOException если каталог исходных изображений недоступен
+     */
+    @PostConstruct
+    void scanSources() throws IOException {
+        Map<String, SourceImage> found = new HashMap<>();
+        for (Resource resource : resourceResolver.getResources(sourceLocation + "*")) {
+            String name = resource.getFilename();
+            if (name == null || !ImageVariants.NAME_PATTERN.matcher(name).matches()) {
+                continue;
+            }
+            found.put(name, new SourceImage(resource, digest(resource)));
+        }
+        sources = Map.copyOf(found);
+    }
+
+    /**
+     * Возвращает URL уменьшенных копий изображения по ширине.
+     *
+     * @param image значение поля image продукта
+     * @return URL копий по возрастанию ширины или пустой словарь, если копий нет
+     */
+    public Map<Integer, String> urlsFor(String image) {
+        String name = ImageVariants.localName(image);
+        SourceImage source = name == null ? null : sources.get(name);
+        if (source == null) {
+            return Map.of();
+        }
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int width : ImageVariants.WIDTHS) {
+            urls.put(width, ImageVariants.URL_PREFIX + width + "/" + source.version + "/" + name);
+        }
+        return urls;
+    }
+
+    /**
+     * Заполняет URL уменьшенных копий изображения продукта перед отдачей клиенту.
+     *
+     * @param product продукт или null
+     * @return тот же продукт
+     */
+    public Product withVariants(Product product) {
+        if (product != null) {
+            product.setImageVariants(urlsFor(product.getImage()));
+        }
+        return product;
+    }
+
+    /**
+     * Возвращает файл уменьшенной копии изображения, при необходимости строя её.
+     *
+     * @param width ширина копии
+     * @param version версия исходного изображения из URL
+     * @param name имя исходного файла
+     * @return файл копии или null, если изображение с такой версией не найдено
+     * @throws IllegalArgumentException если ширина не поддерживается
+     */
+    public VariantFile getVariant(int width, String version, String name) {
+        if (!isSupportedWidth(width)) {
+            throw new IllegalArgumentException("Неподдерживаемая ширина изображения: " + width);
+        }
+        SourceImage source = sources.get(name);
+        if (source == null || !source.version.equals(version)) {
+            return null;
+        }
+        String key = width + "/" + version + "/" + name;
+        while (true) {
+            CompletableFuture<VariantFile> pending = variants.get(key);
+            if (pending == null) {
+                CompletableFuture<VariantFile> created = new CompletableFuture<>();
+                pending = variants.putIfAbsent(key, created);
+                if (pending == null) {
+                    return render(key, created, source, width, name);
+                }
+            }
+            VariantFile variant;
+            try {
+                variant = pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            if (Files.isRegularFile(variant.getPath())) {
+                return variant;
+            }
+            // Файл удалён из дискового кэша: копия строится заново следующим проходом
+            variants.remove(key, pending);
+        }
+    }
+
+    /**
+     * Строит копию и завершает ожидающих её результата. При ошибке запись удаляется,
+     * чтобы следующий запрос повторил построение.
+     *
+     * @param key ключ копии
+     * @param created результат построения, ожидаемый другими запросами
+     * @param source исходное изображение
+     * @param width ширина копии
+     * @param name имя исходного файла
+     * @return файл копии
+     * @throws UncheckedIOException если чтение или запись изображения не удалась
+     */
+    private VariantFile render(String key, CompletableFuture<VariantFile> created, SourceImage source,
+                               int width, String name) {
+        try {
+            VariantFile variant = loadOrRender(source, width, name);
+            created.complete(variant);
+            return variant;
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException(e);
+            variants.remove(key, created);
+            created.completeExceptionally(failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            variants.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Берёт копию из дискового кэша или строит её и атомарно сохраняет в кэш.
+     *
+     * @param source исходное изображение
+     * @param width ширина копии
+     * @param name имя исходного файла
+     * @return файл копии
+     * @throws IOException если чтение или запись изображения не удалась
+     */
+    private VariantFile loadOrRender(SourceImage source, int width, String name) throws IOException {
+        Path dir = Paths.get(cacheDir, Integer.toString(width));
+        String baseName = source.version + "-" + name.substring(0, name.lastIndexOf('.'));
+        Path target = dir.resolve(baseName + ".jpg");
+        VariantFile variant = new VariantFile(target, source.version + "-" + width);
+        if (Files.isRegularFile(target)) {
+            return variant;
+        }
+        BufferedImage original;
+        try (InputStream in = source.resource.getInputStream()) {
+            original = ImageIO.read(in);
+        }
+        if (original == null) {
+            throw new IOException("Неподдерживаемый формат изображения: " + name);
+        }
+        BufferedImage scaled = scale(original, width);
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, baseName, ".tmp");
+        try {
+            writeJpeg(scaled, temp);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return variant;
+    }
+
+    /**
+     * Уменьшает изображение до заданной ширины с сохранением пропорций.
+     * Большие изображения уменьшаются в несколько шагов не более чем вдвое, чтобы билинейная
+     * интерполяция не теряла детали. Изображения уже нужной ширины не увеличиваются.
+     *
+     * @param original исходное изображение
+     * @param width целевая ширина
+     * @return уменьшенное изображение без прозрачности
+     */
+    private static BufferedImage scale(BufferedImage original, int width) {
+        int targetWidth = Math.min(width, original.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) original.getHeight() * targetWidth / original.getWidth()));
+        BufferedImage current = original;
+        int currentWidth = original.getWidth();
+        int currentHeight = original.getHeight();
+        do {
+            int nextWidth = Math.max(targetWidth, currentWidth / 2);
+            int nextHeight = nextWidth == targetWidth ? targetHeight : Math.max(targetHeight, currentHeight / 2);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, nextWidth, nextHeight);
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > targetWidth);
+        return current;
+    }
+
+    /**
+     * Записывает изображение в формате JPEG с настроенным качеством.
+     *
+     * @param image изображение
+     * @param target файл назначения
+     * @throws IOException если запись не удалась
+     */
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Вычисляет версию исходного изображения как начало SHA-256 его содержимого.
+     *
+     * @param resource исходное изображение
+     * @return версия из 12 шестнадцатеричных символов
+     * @throws IOException если чтение не удалось
+     */
+    private static String digest(Resource resource) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = resource.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                sha.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(sha.digest(), 0, 6);
+    }
+
+    /**
+     * Проверяет, что ширина входит в набор поддерживаемых.
+     *
+     * @param width ширина
+     * @return true, если копии такой ширины строятся
+     */
+    private static boolean isSupportedWidth(int width) {
+        for (int supported : ImageVariants.WIDTHS) {
+            if (supported == width) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Исходное изображение и его версия.
+     */
+    private static final class SourceImage {
+
+        private final Resource resource;
+
+        private final String version;
+
+        private SourceImage(Resource resource, String version) {
+            this.resource = resource;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Файл готовой уменьшенной копии в дисковом кэше.
+     */
+    public static final class VariantFile {
+
+        private final Path path;
+
+        private final String contentType;
+
+        private final String etag;
+
+        private VariantFile(Path path, String tag) {
+            this.path = path;
+            this.contentType = "image/jpeg";
+            this.etag = "\"" + tag + "\"";
+        }
+
+        /**
+         * Геттеры для полей класса {@link VariantFile}.
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.musicStore.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая запись JSON-массива из курсора репозитория.
+ * Каждая строка сериализуется сразу после чтения, а контекст персистентности периодически очищается,
+ * поэтому расход памяти не зависит от количества строк в ответе.
+ * Вызывать нужно внутри транзакции, открывшей поток.
+ */
+@Component
+public class JsonStreamWriter {
+
+    /**
+     * Количество строк, после которого буфер сбрасывается клиенту и контекст персистентности очищается.
+     * Совпадает с размером выборки курсора в репозиториях.
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    /**
+     * Преобразователь JSON приложения, чтобы формат ответа совпадал с непотоковыми методами.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Контекст персистентности текущей транзакции.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Записывает элементы потока в выходной поток как JSON-массив.
+     * Поток закрывается по окончании записи, выходной поток остаётся открытым.
+     *
+     * @param rows поток сущностей из репозитория
+     * @param out выходной поток ответа
+     * @param <T> тип элементов
+     * @return количество записанных элементов
+     * @throws IOException если запись в выходной поток не удалась
+     */
+    public <T> long writeArray(Stream<T> rows, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (rows; JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                if (++count % CHUNK_SIZE == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.writeEndArray();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CursorPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Позиция курсорной пагинации: значение ключа сортировки и идентификатор последней записи страницы.
+ * Клиенту передаётся непрозрачной строкой в base64url; курсор привязан к порядку сортировки,
+ * поэтому курсор одной сортировки нельзя применить к другой.
+ */
+public final class KeysetCursor {
+
+    /**
+     * Разделитель частей курсора. Значение ключа идёт последним и может содержать разделитель.
+     */
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Код порядка сортировки, для которого выдан курсор.
+     */
+    private final String sort;
+
+    /**
+     * Идентификатор последней записи страницы.
+     */
+    private final long id;
+
+    /**
+     * Значение ключа сортировки последней записи или null.
+     */
+    private final String key;
+
+    /**
+     * Конструктор с указанием всех полей.
+     *
+     * @param sort код порядка сортировки
+     * @param id идентификатор последней записи
+     * @param key значение ключа сортировки или null
+     */
+    public KeysetCursor(String sort, long id, String key) {
+        this.sort = sort;
+        this.id = id;
+        this.key = key;
+    }
+
+    /**
+     * Кодирует курсор в непрозрачную строку.
+     *
+     * @return строка курсора
+     */
+    public String encode() {
+        String raw = sort + SEPARATOR + id + (key == null ? "" : SEPARATOR + key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает строку курсора, выданную {@link #encode()}.
+     *
+     * @param token строка курсора
+     * @param expectedSort код порядка сортировки текущего запроса
+     * @return курсор
+     * @throws IllegalArgumentException если курсор повреждён или выдан для другой сортировки
+     */
+    public static KeysetCursor decode(String token, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+        String[] parts = raw.split("\\|", 3);
+        if (parts.length < 2 || !parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Курсор не соответствует порядку сортировки");
+        }
+        try {
+            return new KeysetCursor(parts[0], Long.parseLong(parts[1]), parts.length == 3 ? parts[2] : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+    }
+
+    /**
+     * Проверяет размер страницы курсорной пагинации.
+     *
+     * @param size размер страницы
+     * @throws IllegalArgumentException если размер вне допустимого диапазона
+     */
+    public static void validateSize(int size) {
+        if (size < 1 || size > ProductService.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + ProductService.MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Формирует страницу из выборки, запрошенной с одной лишней записью.
+     * Наличие лишней записи означает, что следующая страница существует.
+     *
+     * @param rows выборка размером не более size + 1
+     * @param size размер страницы
+     * @param cursorOf построение курсора по последней записи страницы
+     * @param <T> тип элементов
+     * @return страница с курсором следующей страницы
+     */
+    public static <T> CursorPage<T> page(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, size, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(List.copyOf(content), size, cursorOf.apply(content.get(size - 1)).encode());
+    }
+
+    /**
+     * Геттеры для полей класса {@link KeysetCursor}.
+     */
+    public String getSort() {
+        return sort;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
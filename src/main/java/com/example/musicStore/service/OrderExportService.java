@@ -0,0 +1,426 @@
+package com.example.musicStore.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Сервис выгрузки заказов за период в CSV или NDJSON.
+ * Заказы с пользователями и позициями читаются одним запросом курсором на стороне сервера базы данных
+ * с ограниченным размером выборки и сразу пишутся в выходной поток, поэтому расход памяти не зависит
+ * от количества заказов. Одновременных выгрузок не больше store.export.max-concurrent: каждая держит
+ * соединение с базой данных до конца записи, и остальные запросы не должны оставаться без соединений.
+ */
+@Service
+public class OrderExportService {
+
+    /**
+     * Заказы за период с пользователями и позициями; строки одного заказа идут подряд.
+     * Заказ без позиций возвращается одной строкой с пустыми полями позиции.
+     */
+    private static final String EXPORT_SQL =
+            "SELECT o.id, o.order_date, o.user_id, u.username, o.total_price, " +
+            "i.product_id, p.name, i.quantity, i.unit_price " +
+            "FROM orders o " +
+            "LEFT JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN order_items i ON i.order_id = o.id " +
+            "LEFT JOIN products p ON p.id = i.product_id " +
+            "WHERE o.order_date >= ? AND o.order_date < ? " +
+            "ORDER BY o.order_date, o.id";
+
+    /**
+     * Количество строк, читаемых из курсора за одно обращение к базе данных;
+     * с той же периодичностью буфер выгрузки сбрасывается в выходной поток.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    /**
+     * Заголовок CSV: одна запись на позицию заказа.
+     */
+    private static final Object[] CSV_HEADER = {
+            "order_id", "order_date", "user_id", "username", "order_total",
+            "product_id", "product_name", "quantity", "unit_price", "line_total"
+    };
+
+    /**
+     * Формат выгрузки.
+     */
+    public enum Format {
+        /**
+         * CSV по RFC 4180, одна запись на позицию заказа.
+         */
+        CSV("text/csv; charset=UTF-8", "csv"),
+        /**
+         * JSON-объект заказа с позициями на каждой строке.
+         */
+        NDJSON("application/x-ndjson", "ndjson");
+
+        /**
+         * Тип содержимого ответа.
+         */
+        private final String contentType;
+
+        /**
+         * Расширение файла выгрузки.
+         */
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        /**
+         * Возвращает формат по названию без учёта регистра.
+         *
+         * @param name название формата: csv или ndjson
+         * @return формат выгрузки
+         * @throws IllegalArgumentException если формат неизвестен
+         */
+        public static Format of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Неизвестный формат выгрузки: " + name);
+            }
+        }
+
+        /**
+         * Геттеры для полей перечисления {@link Format}.
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * Исключение при попытке начать выгрузку, когда одновременно выполняется максимальное их количество.
+     */
+    public static final class ExportLimitExceededException extends RuntimeException {
+
+        /**
+         * Конструктор с указанием сообщения.
+         *
+         * @param message текст ошибки
+         */
+        public ExportLimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Максимальное количество одновременных выгрузок.
+     */
+    @Value("${store.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    /**
+     * Преобразователь JSON приложения.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Выполнение запроса выгрузки с размером выборки курсора.
+     */
+    private final JdbcTemplate exportJdbcTemplate;
+
+    /**
+     * Транзакция только для чтения, без которой PostgreSQL не читает результат курсором.
+     */
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Разрешения на одновременные выгрузки.
+     */
+    private Semaphore permits;
+
+    /**
+     * Конструктор с указанием источника данных и менеджера транзакций.
+     *
+     * @param dataSource источник данных приложения
+     * @param transactionManager менеджер транзакций приложения
+     */
+    public OrderExportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Проверяет настройки и создаёт разрешения на выгрузки.
+     *
+     * @throws IllegalStateException если настройки некорректны
+     */
+    @PostConstruct
+    void init() {
+        if (maxConcurrent < 1) {
+            throw new IllegalStateException("Количество одновременных выгрузок должно быть положительным");
+        }
+        permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Записывает заказы за период в выходной поток в порядке дат оформления.
+     *
+     * @param from первый день периода или null
+     * @param to последний день периода включительно или null
+     * @param format формат выгрузки
+     * @param out выходной поток ответа
+     * @return количество выгруженных заказов
+     * @throws IllegalArgumentException если начало периода позже его конца
+     * @throws ExportLimitExceededException если одновременно выполняется максимальное количество выгрузок
+     * @throws IOException если запись в выходной поток не удалась
+     */
+    public long export(LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода не может быть позже его конца");
+        }
+        if (!permits.tryAcquire()) {
+            throw new ExportLimitExceededException("Выполняется максимальное количество выгрузок, повторите позже");
+        }
+        try {
+            OrderRowWriter writer = format == Format.CSV ? new CsvOrderWriter(out) : new NdjsonOrderWriter(out);
+            readOnlyTransaction.executeWithoutResult(status -> exportJdbcTemplate.query(EXPORT_SQL, writer,
+                    OrderService.periodStart(from), OrderService.periodEnd(to)));
+            return writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Запись строк результата выгрузки: строки одного заказа поступают подряд.
+     */
+    private abstract static class OrderRowWriter implements RowCallbackHandler {
+
+        /**
+         * Идентификатор текущего заказа или null до первой строки.
+         */
+        private Long currentOrderId;
+
+        /**
+         * Количество записанных заказов.
+         */
+        private long orders;
+
+        /**
+         * Количество записанных строк.
+         */
+        private long rows;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                long orderId = rs.getLong(1);
+                if (currentOrderId == null || currentOrderId != orderId) {
+                    if (currentOrderId != null) {
+                        endOrder();
+                    }
+                    currentOrderId = orderId;
+                    orders++;
+                    startOrder(rs);
+                }
+                row(rs);
+                if (++rows % FETCH_SIZE == 0) {
+                    flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Завершает последний заказ и сбрасывает буфер в выходной поток.
+         *
+         * @return количество записанных заказов
+         * @throws IOException если запись не удалась
+         */
+        long finish() throws IOException {
+            if (currentOrderId != null) {
+                endOrder();
+            }
+            close();
+            return orders;
+        }
+
+        /**
+         * Начинает запись заказа по его первой строке.
+         *
+         * @param rs результат запроса на первой строке заказа
+         */
+        abstract void startOrder(ResultSet rs) throws SQLException, IOException;
+
+        /**
+         * Записывает строку заказа.
+         *
+         * @param rs результат запроса на текущей строке
+         */
+        abstract void row(ResultSet rs) throws SQLException, IOException;
+
+        /**
+         * Завершает запись заказа.
+         */
+        abstract void endOrder() throws IOException;
+
+        /**
+         * Сбрасывает буфер в выходной поток.
+         */
+        abstract void flush() throws IOException;
+
+        /**
+         * Сбрасывает буфер, оставляя выходной поток открытым.
+         */
+        abstract void close() throws IOException;
+    }
+
+    /**
+     * Запись выгрузки в CSV: одна запись на позицию заказа, заказ без позиций — одна запись без позиции.
+     */
+    private static final class CsvOrderWriter extends OrderRowWriter {
+
+        /**
+         * Буферизованный приёмник символов.
+         */
+        private final Writer writer;
+
+        /**
+         * Запись полей CSV.
+         */
+        private final CsvWriter csv;
+
+        private CsvOrderWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.csv = new CsvWriter(writer);
+            csv.write(CSV_HEADER);
+        }
+
+        @Override
+        void startOrder(ResultSet rs) {
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException, IOException {
+            Long productId = rs.getObject(6, Long.class);
+            Integer quantity = rs.getObject(8, Integer.class);
+            Double unitPrice = rs.getObject(9, Double.class);
+            csv.write(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getObject(3, Long.class),
+                    CsvWriter.text(rs.getString(4)), rs.getDouble(5), productId, CsvWriter.text(rs.getString(7)),
+                    quantity, unitPrice,
+                    quantity == null || unitPrice == null ? null : quantity * unitPrice);
+        }
+
+        @Override
+        void endOrder() {
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Запись выгрузки в NDJSON: объект заказа с массивом позиций на каждой строке.
+     */
+    private final class NdjsonOrderWriter extends OrderRowWriter {
+
+        /**
+         * Генератор JSON поверх выходного потока.
+         */
+        private final JsonGenerator generator;
+
+        private NdjsonOrderWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        void startOrder(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong(1));
+            generator.writeStringField("orderDate", rs.getTimestamp(2).toLocalDateTime().toString());
+            long userId = rs.getLong(3);
+            if (rs.wasNull()) {
+                generator.writeNullField("userId");
+            } else {
+                generator.writeNumberField("userId", userId);
+            }
+            generator.writeStringField("username", rs.getString(4));
+            generator.writeNumberField("totalPrice", rs.getDouble(5));
+            generator.writeArrayFieldStart("items");
+        }
+
+        @Override
+        void row(ResultSet rs) throws SQLException, IOException {
+            long productId = rs.getLong(6);
+            if (rs.wasNull()) {
+                return;
+            }
+            int quantity = rs.getInt(8);
+            double unitPrice = rs.getDouble(9);
+            generator.writeStartObject();
+            generator.writeNumberField("productId", productId);
+            generator.writeStringField("name", rs.getString(7));
+            generator.writeNumberField("quantity", quantity);
+            generator.writeNumberField("unitPrice", unitPrice);
+            generator.writeNumberField("lineTotal", quantity * unitPrice);
+            generator.writeEndObject();
+        }
+
+        @Override
+        void endOrder() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        void close() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -2,17 +2,29 @@ package com.example.musicStore.service;
 import com.example.musicStore.model.User;
 import com.example.musicStore.model.Cart;
 import com.example.musicStore.model.Order;
-import com.example.musicStore.model.Product;
+import com.example.musicStore.model.OrderItem;
+import com.example.musicStore.model.OrderLine;
+import com.example.musicStore.model.OrderSummary;
+import com.example.musicStore.model.PageResponse;
+import com.example.musicStore.model.UserOrderMetrics;
 import com.example.musicStore.model.CartItem;
+import com.example.musicStore.model.CursorPage;
 import com.example.musicStore.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -23,12 +35,44 @@ import java.util.stream.Collectors;
 @Service
 public class OrderService {
 
+    /**
+     * Код порядка сортировки курсора истории заказов.
+     */
+    private static final String ORDER_CURSOR_SORT = "date-desc";
+
+    /**
+     * Максимальный размер страницы метрик заказов.
+     */
+    public static final int MAX_METRICS_PAGE_SIZE = 100;
+
+    /**
+     * Начало периода метрик, если оно не задано.
+     */
+    private static final LocalDate FIRST_METRICS_DAY = LocalDate.of(1970, 1, 1);
+
+    /**
+     * Конец периода метрик, если он не задан.
+     */
+    private static final LocalDate LAST_METRICS_DAY = LocalDate.of(9999, 12, 30);
+
+    /**
+     * Вставка позиции заказа.
+     */
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)";
+
     /**
      * Репозиторий для работы с заказами.
      */
     @Autowired
     private OrderRepository orderRepository;
 
+    /**
+     * Потоковая запись JSON-массивов.
+     */
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     /**
      * Сервис для работы с корзиной.
      */
@@ -42,15 +86,81 @@ public class OrderService {
     private UserService userService;
 
     /**
-     * Создаёт заказ на основе корзины пользователя.
+     * Исполнитель изменений корзины с повтором при конфликтах.
+     */
+    @Autowired
+    private CartMutationExecutor cartMutationExecutor;
+
+    /**
+     * Выполнение операторов JDBC.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сервис накопленных итогов заказов по пользователям.
+     */
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
+
+    /**
+     * Сервис аналитики продаж по времени.
+     */
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    /**
+     * Создаёт заказ на основе корзины пользователя. Если корзина изменилась одновременно с оформлением,
+     * оформление повторяется заново в новой транзакции.
      *
      * @param userId идентификатор пользователя
      * @return созданный заказ
      * @throws IllegalArgumentException если пользователь не найден
      * @throws IllegalStateException если корзина пуста
      */
-    @Transactional
     public Order createOrder(Long userId) {
+        return createOrder(userId, null);
+    }
+
+    /**
+     * Создаёт заказ на основе корзины пользователя с ключом идемпотентности. Если заказ с этим ключом
+     * уже оформлен, возвращается он, а корзина не изменяется; одновременное оформление с тем же ключом
+     * на другом экземпляре приложения отсекается уникальным ограничением в базе данных.
+     *
+     * @param userId идентификатор пользователя
+     * @param idempotencyKey ключ идемпотентности или null
+     * @return созданный или ранее оформленный заказ
+     * @throws IllegalArgumentException если пользователь не найден
+     * @throws IllegalStateException если корзина пуста
+     */
+    public Order createOrder(Long userId, String idempotencyKey) {
+        try {
+            return cartMutationExecutor.execute(userId, () -> placeOrder(userId, idempotencyKey));
+        } catch (DataIntegrityViolationException e) {
+            Order existing = idempotencyKey == null ? null
+                    : orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (existing == null) {
+                throw e;
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * Создаёт заказ на основе корзины пользователя в транзакции вызывающего кода.
+     *
+     * @param userId идентификатор пользователя
+     * @param idempotencyKey ключ идемпотентности или null
+     * @return созданный или ранее оформленный с этим ключом заказ
+     */
+    private Order placeOrder(Long userId, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Order existing = orderRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
         // Находим пользователя
         User user = userService.findById(userId);
         if (user == null) {
@@ -67,27 +177,28 @@ public class OrderService {
         Order order = new Order();
         order.setUser(user);
         order.setOrderDate(LocalDateTime.now());
+        order.setIdempotencyKey(idempotencyKey);
 
-        // Копируем товары из корзины в новый список
-        List<Product> products = new ArrayList<>();
+        // Одна позиция на продукт с ценой на момент заказа
+        List<OrderItem> items = new ArrayList<>(cart.getItems().size());
+        double totalPrice = 0;
         for (CartItem item : cart.getItems()) {
-            Product product = item.getProduct();
-            int quantity = item.getQuantity();
-            // Добавляем товар в заказ столько раз, сколько указано в quantity
-            for (int i = 0; i < quantity; i++) {
-                products.add(product);
-            }
+            OrderItem orderItem = new OrderItem(order, item.getProduct(), item.getQuantity(), item.getProduct().getPrice());
+            items.add(orderItem);
+            totalPrice += orderItem.getLineTotal();
         }
-        order.setProducts(products);
-
-        // Вычисляем общую стоимость
-        double totalPrice = cart.getItems().stream()
-                .mapToDouble(item -> item.getProduct().getPrice() * item.getQuantity())
-                .sum();
         order.setTotalPrice(totalPrice);
 
-        // Сохраняем заказ
+        // Сохраняем заказ, затем его позиции одним пакетом
         order = orderRepository.save(order);
+        List<Object[]> rows = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            rows.add(new Object[]{order.getId(), item.getProduct().getId(), item.getQuantity(), item.getUnitPrice()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, rows);
+        order.setItems(items);
+        userOrderStatsService.recordOrder(userId, user.getUsername(), totalPrice);
+        salesAnalyticsService.recordOrder(order);
 
         // Очищаем корзину после создания заказа
         cartService.clearCart(userId);
@@ -96,56 +207,163 @@ public class OrderService {
     }
 
     /**
-     * Возвращает список заказов пользователя.
+     * Возвращает страницу истории заказов пользователя с курсорной пагинацией, начиная с самых новых.
+     * Страница читается двумя запросами независимо от количества заказов пользователя: заказы страницы
+     * по индексу (user_id, order_date, id) и позиции всех заказов страницы вместе с продуктами.
      *
      * @param userId идентификатор пользователя
-     * @return список заказов
+     * @param cursor курсор из ответа на предыдущую страницу или null для первой страницы
+     * @param size размер страницы
+     * @return страница заказов в кратком представлении с курсором следующей страницы
+     * @throws IllegalArgumentException если курсор или размер страницы некорректны
      */
-    public List<Order> getOrdersByUser(Long userId) {
-        return orderRepository.findByUserId(userId);
+    public CursorPage<OrderSummary> getOrdersByUserAfter(Long userId, String cursor, int size) {
+        KeysetCursor.validateSize(size);
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<OrderSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findLatestByUserId(userId, limit);
+        } else {
+            KeysetCursor before = KeysetCursor.decode(cursor, ORDER_CURSOR_SORT);
+            rows = orderRepository.findByUserIdBefore(userId, parseOrderDate(before.getKey()), before.getId(), limit);
+        }
+        CursorPage<OrderSummary> page = KeysetCursor.page(rows, size,
+                order -> new KeysetCursor(ORDER_CURSOR_SORT, order.getId(), order.getOrderDate().toString()));
+        if (page.getContent().isEmpty()) {
+            return page;
+        }
+        Map<Long, List<OrderLine>> lines = orderRepository.findLinesByOrderIds(
+                        page.getContent().stream().map(OrderSummary::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(OrderLine::getOrderId));
+        page.setContent(page.getContent().stream()
+                .map(order -> order.withItems(lines.getOrDefault(order.getId(), List.of())))
+                .toList());
+        return page;
     }
 
     /**
-     * Возвращает метрики о количестве заказов по пользователям.
+     * Разбирает дату заказа из курсора.
      *
-     * @return список метрик (имя пользователя и количество заказов)
-     */
-    public List<Map<String, Object>> getOrdersCountByUser() {
-        List<Order> orders = orderRepository.findAll();
-        return orders.stream()
-                .collect(Collectors.groupingBy(
-                        order -> order.getUser().getUsername(),
-                        Collectors.counting()
-                ))
-                .entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("username", entry.getKey());
-                    map.put("orderCount", entry.getValue());
-                    return map;
-                })
-                .collect(Collectors.toList());
+     * @param value строковое представление даты
+     * @return дата заказа
+     * @throws IllegalArgumentException если значение повреждено
+     */
+    private static LocalDateTime parseOrderDate(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
     }
 
     /**
-     * Возвращает метрики об общей стоимости заказов по пользователям.
+     * Записывает заказы пользователя в выходной поток как JSON-массив, читая их курсором из базы данных.
      *
-     * @return список метрик (имя пользователя и общая стоимость)
-     */
-    public List<Map<String, Object>> getTotalPriceByUser() {
-        List<Order> orders = orderRepository.findAll();
-        return orders.stream()
-                .collect(Collectors.groupingBy(
-                        order -> order.getUser().getUsername(),
-                        Collectors.summingDouble(Order::getTotalPrice)
-                ))
-                .entrySet().stream()
-                .map(entry -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("username", entry.getKey());
-                    map.put("totalPrice", entry.getValue());
-                    return map;
-                })
-                .collect(Collectors.toList());
+     * @param userId идентификатор пользователя
+     * @param out выходной поток ответа
+     * @throws IOException если запись в выходной поток не удалась
+     */
+    @Transactional(readOnly = true)
+    public void streamOrdersByUser(Long userId, OutputStream out) throws IOException {
+        jsonStreamWriter.writeArray(orderRepository.streamByUserId(userId), out);
+    }
+
+    /**
+     * Возвращает страницу метрик заказов по пользователям за период, начиная с пользователей
+     * с наибольшим количеством заказов. Без периода метрики читаются из накопленных итогов
+     * {@link UserOrderStatsService} без обращения к базе данных; за период группировка выполняется в базе данных.
+     *
+     * @param from первый день периода или null
+     * @param to последний день периода включительно или null
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы; первая страница — топ-size пользователей
+     * @return страница метрик (имя пользователя, количество и общая стоимость заказов)
+     * @throws IllegalArgumentException если параметры страницы или периода некорректны
+     */
+    public PageResponse<UserOrderMetrics> getOrdersCountByUser(LocalDate from, LocalDate to, int page, int size) {
+        validateMetricsQuery(from, to, page, size);
+        if (from == null && to == null && userOrderStatsService.isLoaded()) {
+            return userOrderStatsService.pageByOrderCount(page, size);
+        }
+        return toPageResponse(orderRepository.findMetricsByOrderCount(periodStart(from), periodEnd(to),
+                PageRequest.of(page, size)));
+    }
+
+    /**
+     * Возвращает страницу метрик заказов по пользователям за период, начиная с пользователей
+     * с наибольшей общей стоимостью заказов. Без периода метрики читаются из накопленных итогов
+     * {@link UserOrderStatsService} без обращения к базе данных; за период группировка выполняется в базе данных.
+     *
+     * @param from первый день периода или null
+     * @param to последний день периода включительно или null
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы; первая страница — топ-size пользователей
+     * @return страница метрик (имя пользователя, количество и общая стоимость заказов)
+     * @throws IllegalArgumentException если параметры страницы или периода некорректны
+     */
+    public PageResponse<UserOrderMetrics> getTotalPriceByUser(LocalDate from, LocalDate to, int page, int size) {
+        validateMetricsQuery(from, to, page, size);
+        if (from == null && to == null && userOrderStatsService.isLoaded()) {
+            return userOrderStatsService.pageByTotalPrice(page, size);
+        }
+        return toPageResponse(orderRepository.findMetricsByTotalPrice(periodStart(from), periodEnd(to),
+                PageRequest.of(page, size)));
+    }
+
+    /**
+     * Проверяет параметры запроса метрик.
+     *
+     * @param from первый день периода или null
+     * @param to последний день периода или null
+     * @param page номер страницы
+     * @param size размер страницы
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    private static void validateMetricsQuery(LocalDate from, LocalDate to, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Номер страницы не может быть отрицательным");
+        }
+        if (size < 1 || size > MAX_METRICS_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_METRICS_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода не может быть позже его конца");
+        }
+    }
+
+    /**
+     * Возвращает начало периода метрик или выгрузки заказов включительно.
+     *
+     * @param from первый день периода или null
+     * @return полночь первого дня периода
+     */
+    static LocalDateTime periodStart(LocalDate from) {
+        return (from == null ? FIRST_METRICS_DAY : from).atStartOfDay();
+    }
+
+    /**
+     * Возвращает конец периода метрик или выгрузки заказов не включительно.
+     *
+     * @param to последний день периода или null
+     * @return полночь дня, следующего за последним днём периода
+     */
+    static LocalDateTime periodEnd(LocalDate to) {
+        return (to == null ? LAST_METRICS_DAY : to).plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * Преобразует страницу Spring Data в ответ API.
+     *
+     * @param result страница результата
+     * @param <T> тип элементов
+     * @return страница ответа
+     */
+    private static <T> PageResponse<T> toPageResponse(Page<T> result) {
+        return new PageResponse<>(result.getContent(), result.getNumber(), result.getSize(),
+                result.getTotalElements(), result.getTotalPages());
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.PriceBucket;
+import com.example.musicStore.model.PriceHistogram;
+import com.example.musicStore.model.Product;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Индекс цен каталога: количество продуктов по ценовым диапазонам для всего каталога и для каждой категории.
+ * Кроме счётчиков диапазонов хранит упорядоченные цены, поэтому количество продуктов в произвольном
+ * диапазоне цен считается по целым диапазонам гистограммы и просмотру только двух крайних из них.
+ */
+@Component
+public class PriceBucketIndex implements ProductIndex {
+
+    /**
+     * Нижние границы ценовых диапазонов по возрастанию; последний диапазон открыт сверху.
+     */
+    @Value("${store.price-histogram.boundaries:0,1000,5000,10000,20000,50000,100000,200000,500000}")
+    private double[] boundaries;
+
+    /**
+     * Цена и категория каждого продукта, нужны для отмены при обновлении и удалении.
+     */
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Статистика цен всего каталога.
+     */
+    private PriceStats catalog;
+
+    /**
+     * Статистика цен по категориям.
+     */
+    private final Map<String, PriceStats> categories = new HashMap<>();
+
+    /**
+     * Проверяет границы диапазонов из конфигурации.
+     *
+     * @throws IllegalStateException если границы не заданы или не возрастают
+     */
+    @PostConstruct
+    void init() {
+        if (boundaries.length == 0) {
+            throw new IllegalStateException("Не заданы границы ценовых диапазонов");
+        }
+        for (int i = 1; i < boundaries.length; i++) {
+            if (boundaries[i] <= boundaries[i - 1]) {
+                throw new IllegalStateException("Границы ценовых диапазонов должны возрастать");
+            }
+        }
+        catalog = new PriceStats(boundaries.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void rebuild(Collection<Product> products) {
+        entries.clear();
+        categories.clear();
+        catalog = new PriceStats(boundaries.length);
+        products.forEach(this::add);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void update(Product product) {
+        remove(product.getId());
+        add(product);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void remove(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+        int bucket = bucketOf(entry.price);
+        catalog.remove(entry.price, bucket);
+        if (entry.category != null) {
+            PriceStats stats = categories.get(entry.category);
+            stats.remove(entry.price, bucket);
+            if (stats.count == 0) {
+                categories.remove(entry.category);
+            }
+        }
+    }
+
+    /**
+     * Возвращает гистограмму цен и количество продуктов в диапазоне [minPrice, maxPrice].
+     *
+     * @param category категория или null для всего каталога
+     * @param minPrice нижняя граница диапазона (включительно) или null
+     * @param maxPrice верхняя граница диапазона (включительно) или null
+     * @return гистограмма цен
+     */
+    public synchronized PriceHistogram histogram(String category, Double minPrice, Double maxPrice) {
+        PriceStats stats = category == null || category.isEmpty() ? catalog : categories.get(category);
+        List<PriceBucket> buckets = new ArrayList<>(boundaries.length);
+        for (int i = 0; i < boundaries.length; i++) {
+            Double to = i + 1 < boundaries.length ? boundaries[i + 1] : null;
+            buckets.add(new PriceBucket(boundaries[i], to, stats == null ? 0 : stats.bucketCounts[i]));
+        }
+        if (stats == null || stats.count == 0) {
+            return new PriceHistogram(null, null, 0, 0, buckets);
+        }
+        double low = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+        double high = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+        return new PriceHistogram(stats.prices.firstKey(), stats.prices.lastKey(), stats.count,
+                countInRange(stats, low, high), buckets);
+    }
+
+    /**
+     * Считает продукты с ценой в диапазоне [low, high]: целые диапазоны гистограммы берутся из счётчиков,
+     * а упорядоченные цены просматриваются только в двух крайних диапазонах.
+     *
+     * @param stats статистика цен
+     * @param low нижняя граница (включительно)
+     * @param high верхняя граница (включительно)
+     * @return количество продуктов
+     */
+    private long countInRange(PriceStats stats, double low, double high) {
+        if (low > high) {
+            return 0;
+        }
+        int first = bucketOf(low);
+        int last = bucketOf(high);
+        if (first == last) {
+            return sum(stats.prices.subMap(low, true, high, true));
+        }
+        long count = sum(stats.prices.subMap(low, true, boundaries[first + 1], false));
+        for (int i = first + 1; i < last; i++) {
+            count += stats.bucketCounts[i];
+        }
+        return count + sum(stats.prices.subMap(boundaries[last], true, high, true));
+    }
+
+    /**
+     * Суммирует количества продуктов по ценам.
+     *
+     * @param prices количества по ценам
+     * @return сумма
+     */
+    private static long sum(NavigableMap<Double, Integer> prices) {
+        long count = 0;
+        for (int value : prices.values()) {
+            count += value;
+        }
+        return count;
+    }
+
+    /**
+     * Учитывает продукт в статистике цен.
+     *
+     * @param product продукт
+     */
+    private void add(Product product) {
+        String category = product.getCategory() == null || product.getCategory().isEmpty() ? null : product.getCategory();
+        Entry entry = new Entry(product.getPrice(), category);
+        entries.put(product.getId(), entry);
+        int bucket = bucketOf(entry.price);
+        catalog.add(entry.price, bucket);
+        if (category != null) {
+            categories.computeIfAbsent(category, key -> new PriceStats(boundaries.length)).add(entry.price, bucket);
+        }
+    }
+
+    /**
+     * Определяет номер ценового диапазона; цены ниже первой границы попадают в первый диапазон.
+     *
+     * @param price цена
+     * @return номер диапазона
+     */
+    int bucketOf(double price) {
+        int low = 0;
+        int high = boundaries.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (boundaries[mid] <= price) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Цена и категория одного продукта.
+     */
+    private static final class Entry {
+
+        private final double price;
+
+        private final String category;
+
+        private Entry(double price, String category) {
+            this.price = price;
+            this.category = category;
+        }
+    }
+
+    /**
+     * Счётчики диапазонов и упорядоченные цены одной выборки продуктов.
+     */
+    private static final class PriceStats {
+
+        private final long[] bucketCounts;
+
+        private final TreeMap<Double, Integer> prices = new TreeMap<>();
+
+        private long count;
+
+        private PriceStats(int buckets) {
+            this.bucketCounts = new long[buckets];
+        }
+
+        private void add(double price, int bucket) {
+            bucketCounts[bucket]++;
+            prices.merge(price, 1, Integer::sum);
+            count++;
+        }
+
+        private void remove(double price, int bucket) {
+            bucketCounts[bucket]--;
+            prices.computeIfPresent(price, (key, value) -> value == 1 ? null : value - 1);
+            count--;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.FacetValue;
+import com.example.musicStore.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Индекс фасетов каталога: уникальные категории и бренды с количеством продуктов и количеством продуктов в наличии.
+ * Обновляется инкрементально, поэтому чтение фасетов стоит O(число значений), а не O(размер каталога).
+ */
+@Component
+public class ProductFacetIndex implements ProductIndex {
+
+    /**
+     * Вклад каждого продукта в фасеты, нужен для отмены при обновлении и удалении.
+     */
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Счётчики по категориям в алфавитном порядке.
+     */
+    private final TreeMap<String, Counter> categories = new TreeMap<>();
+
+    /**
+     * Счётчики по брендам в алфавитном порядке.
+     */
+    private final TreeMap<String, Counter> brands = new TreeMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void rebuild(Collection<Product> products) {
+        entries.clear();
+        categories.clear();
+        brands.clear();
+        products.forEach(this::add);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void update(Product product) {
+        remove(product.getId());
+        add(product);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void remove(Long productId) {
+        Entry entry = entries.remove(productId);
+        if (entry != null) {
+            decrement(categories, entry.category, entry.inStock);
+            decrement(brands, entry.brand, entry.inStock);
+        }
+    }
+
+    /**
+     * Возвращает категории с количеством продуктов.
+     *
+     * @return список значений фасета в алфавитном порядке
+     */
+    public synchronized List<FacetValue> getCategories() {
+        return toFacetValues(categories);
+    }
+
+    /**
+     * Возвращает бренды с количеством продуктов.
+     *
+     * @return список значений фасета в алфавитном порядке
+     */
+    public synchronized List<FacetValue> getBrands() {
+        return toFacetValues(brands);
+    }
+
+    /**
+     * Возвращает множество названий категорий.
+     *
+     * @return неизменяемое множество категорий
+     */
+    public synchronized Set<String> getCategoryNames() {
+        return Set.copyOf(categories.keySet());
+    }
+
+    /**
+     * Возвращает множество названий брендов.
+     *
+     * @return неизменяемое множество брендов
+     */
+    public synchronized Set<String> getBrandNames() {
+        return Set.copyOf(brands.keySet());
+    }
+
+    /**
+     * Учитывает продукт в счётчиках фасетов.
+     *
+     * @param product продукт
+     */
+    private void add(Product product) {
+        Entry entry = new Entry(normalize(product.getCategory()), normalize(product.getBrand()), product.isInStock());
+        entries.put(product.getId(), entry);
+        increment(categories, entry.category, entry.inStock);
+        increment(brands, entry.brand, entry.inStock);
+    }
+
+    /**
+     * Увеличивает счётчики значения фасета.
+     *
+     * @param facet счётчики фасета
+     * @param value значение фасета или null
+     * @param inStock наличие продукта на складе
+     */
+    private static void increment(Map<String, Counter> facet, String value, boolean inStock) {
+        if (value == null) {
+            return;
+        }
+        Counter counter = facet.computeIfAbsent(value, key -> new Counter());
+        counter.count++;
+        if (inStock) {
+            counter.inStockCount++;
+        }
+    }
+
+    /**
+     * Уменьшает счётчики значения фасета и удаляет значение, если продуктов с ним не осталось.
+     *
+     * @param facet счётчики фасета
+     * @param value значение фасета или null
+     * @param inStock наличие продукта на складе
+     */
+    private static void decrement(Map<String, Counter> facet, String value, boolean inStock) {
+        if (value == null) {
+            return;
+        }
+        Counter counter = facet.get(value);
+        if (counter == null) {
+            return;
+        }
+        counter.count--;
+        if (inStock) {
+            counter.inStockCount--;
+        }
+        if (counter.count <= 0) {
+            facet.remove(value);
+        }
+    }
+
+    /**
+     * Преобразует счётчики фасета в список значений.
+     *
+     * @param facet счётчики фасета
+     * @return список значений фасета
+     */
+    private static List<FacetValue> toFacetValues(TreeMap<String, Counter> facet) {
+        List<FacetValue> values = new ArrayList<>(facet.size());
+        facet.forEach((value, counter) -> values.add(new FacetValue(value, counter.count, counter.inStockCount)));
+        return values;
+    }
+
+    /**
+     * Приводит пустые значения к null, чтобы они не попадали в фасеты.
+     *
+     * @param value исходное значение
+     * @return значение или null
+     */
+    private static String normalize(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Вклад одного продукта в фасеты.
+     */
+    private static final class Entry {
+
+        private final String category;
+
+        private final String brand;
+
+        private final boolean inStock;
+
+        private Entry(String category, String brand, boolean inStock) {
+            this.category = category;
+            this.brand = brand;
+            this.inStock = inStock;
+        }
+    }
+
+    /**
+     * Счётчики одного значения фасета.
+     */
+    private static final class Counter {
+
+        private long count;
+
+        private long inStockCount;
+    }
+}
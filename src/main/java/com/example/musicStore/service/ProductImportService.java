@@ -0,0 +1,364 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.ImportReport;
+import com.example.musicStore.model.ImportRowError;
+import com.example.musicStore.model.Product;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Сервис массового импорта товаров из JSON-массива или CSV.
+ * Данные читаются потоково и сохраняются пачками фиксированного размера, каждая пачка — отдельной
+ * транзакцией с пакетной вставкой JDBC. Строки с ошибками пропускаются и попадают в отчёт.
+ */
+@Service
+public class ProductImportService {
+
+    /**
+     * Максимальное количество ошибок, перечисляемых в отчёте.
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * Максимальная длина строковых полей товара (varchar(255) в таблице products).
+     */
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    /**
+     * Количество товаров в одной транзакции.
+     */
+    @Value("${store.import.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Сервис для работы с продуктами.
+     */
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Преобразователь JSON приложения.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Импортирует товары из JSON-массива объектов с полями {@link Product}.
+     * Идентификаторы из входных данных игнорируются: все товары создаются заново.
+     *
+     * @param in поток с JSON-массивом
+     * @return отчёт об импорте
+     * @throws IOException если чтение потока не удалось
+     * @throws IllegalArgumentException если данные не являются JSON-массивом
+     */
+    public ImportReport importJson(InputStream in) throws IOException {
+        ImportSession session = new ImportSession();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Ожидается JSON-массив товаров");
+            }
+            try {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.currentToken() == null) {
+                        throw new IllegalArgumentException("Неожиданный конец JSON");
+                    }
+                    long row = session.nextRow();
+                    JsonNode node = parser.readValueAsTree();
+                    try {
+                        session.accept(row, objectMapper.treeToValue(node, Product.class));
+                    } catch (JsonProcessingException e) {
+                        session.reject(row, "Некорректные данные товара: " + e.getOriginalMessage());
+                    } catch (IllegalArgumentException e) {
+                        session.reject(row, "Некорректные данные товара: " + e.getMessage());
+                    }
+                }
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                String message = e instanceof JsonProcessingException
+                        ? ((JsonProcessingException) e).getOriginalMessage() : e.getMessage();
+                session.abort("Импорт прерван, некорректный JSON: " + message);
+            }
+        }
+        return session.finish();
+    }
+
+    /**
+     * Импортирует товары из CSV в кодировке UTF-8.
+     * Первая строка — заголовок с именами колонок: обязательны name и price,
+     * необязательны image, category, description, brand и inStock.
+     *
+     * @param in поток с CSV
+     * @return отчёт об импорте
+     * @throws IOException если чтение потока не удалось
+     * @throws IllegalArgumentException если в заголовке нет обязательных колонок
+     */
+    public ImportReport importCsv(InputStream in) throws IOException {
+        ImportSession session = new ImportSession();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV не содержит заголовка");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "");
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            columns.put(name, i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new IllegalArgumentException("В заголовке CSV нет обязательных колонок name и price");
+        }
+        try {
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                long row = session.nextRow();
+                try {
+                    session.accept(row, fromCsv(record, columns));
+                } catch (IllegalArgumentException e) {
+                    session.reject(row, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            session.abort("Импорт прерван: " + e.getMessage());
+        }
+        return session.finish();
+    }
+
+    /**
+     * Создаёт товар из записи CSV.
+     *
+     * @param record поля записи
+     * @param columns номера колонок по имени
+     * @return товар
+     * @throws IllegalArgumentException если значение поля некорректно
+     */
+    private static Product fromCsv(List<String> record, Map<String, Integer> columns) {
+        Product product = new Product();
+        product.setName(column(record, columns, "name"));
+        product.setImage(column(record, columns, "image"));
+        product.setCategory(column(record, columns, "category"));
+        product.setDescription(column(record, columns, "description"));
+        product.setBrand(column(record, columns, "brand"));
+        String price = column(record, columns, "price");
+        if (price == null) {
+            throw new IllegalArgumentException("Не указана цена");
+        }
+        try {
+            product.setPrice(Double.parseDouble(price.replace(',', '.')));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректная цена: " + price);
+        }
+        String inStock = column(record, columns, "instock");
+        product.setInStock(inStock != null && parseBoolean(inStock));
+        return product;
+    }
+
+    /**
+     * Возвращает значение колонки записи.
+     *
+     * @param record поля записи
+     * @param columns номера колонок по имени
+     * @param name имя колонки
+     * @return значение без крайних пробелов или null, если колонки нет или она пуста
+     */
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Разбирает логическое значение колонки наличия.
+     *
+     * @param value значение
+     * @return признак наличия
+     * @throws IllegalArgumentException если значение не распознано
+     */
+    private static boolean parseBoolean(String value) {
+        switch (value.toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "1":
+            case "yes":
+            case "да":
+                return true;
+            case "false":
+            case "0":
+            case "no":
+            case "нет":
+                return false;
+            default:
+                throw new IllegalArgumentException("Некорректное значение наличия: " + value);
+        }
+    }
+
+    /**
+     * Проверяет товар перед сохранением.
+     *
+     * @param product товар
+     * @throws IllegalArgumentException если товар некорректен
+     */
+    private static void validate(Product product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            throw new IllegalArgumentException("Не указано название товара");
+        }
+        if (!Double.isFinite(product.getPrice()) || product.getPrice() < 0) {
+            throw new IllegalArgumentException("Цена должна быть неотрицательным числом");
+        }
+        checkLength("name", product.getName());
+        checkLength("image", product.getImage());
+        checkLength("category", product.getCategory());
+        checkLength("brand", product.getBrand());
+    }
+
+    /**
+     * Проверяет длину строкового поля.
+     *
+     * @param field имя поля
+     * @param value значение
+     * @throws IllegalArgumentException если значение длиннее допустимого
+     */
+    private static void checkLength(String field, String value) {
+        if (value != null && value.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Поле " + field + " длиннее " + MAX_FIELD_LENGTH + " символов");
+        }
+    }
+
+    /**
+     * Состояние одного импорта: текущая пачка, счётчики и ошибки.
+     */
+    private final class ImportSession {
+
+        /**
+         * Продукты текущей пачки, ещё не записанные в базу данных.
+         */
+        private final List<Product> chunk = new ArrayList<>(chunkSize);
+
+        /**
+         * Номера строк файла для продуктов текущей пачки.
+         */
+        private final List<Long> chunkRows = new ArrayList<>(chunkSize);
+
+        /**
+         * Ошибки строк для отчёта, не больше {@link #MAX_REPORTED_ERRORS}.
+         */
+        private final List<ImportRowError> errors = new ArrayList<>();
+
+        /**
+         * Количество прочитанных строк данных.
+         */
+        private long rows;
+
+        /**
+         * Количество импортированных продуктов.
+         */
+        private long imported;
+
+        /**
+         * Количество строк с ошибками.
+         */
+        private long failed;
+
+        /**
+         * Возвращает номер следующей строки данных.
+         */
+        long nextRow() {
+            return ++rows;
+        }
+
+        /**
+         * Проверяет товар и добавляет его в текущую пачку; заполненная пачка сохраняется.
+         */
+        void accept(long row, Product product) {
+            try {
+                validate(product);
+            } catch (IllegalArgumentException e) {
+                reject(row, e.getMessage());
+                return;
+            }
+            product.setId(null);
+            chunk.add(product);
+            chunkRows.add(row);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Учитывает отклонённую строку.
+         */
+        void reject(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(row, message));
+            }
+        }
+
+        /**
+         * Прерывает разбор: уже прочитанные строки сохраняются, причина попадает в отчёт.
+         */
+        void abort(String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportRowError(rows, message));
+            }
+        }
+
+        /**
+         * Сохраняет текущую пачку. Если пачка отклонена базой данных, строки сохраняются по одной,
+         * чтобы в отчёт попали именно ошибочные строки.
+         */
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                imported += productService.saveImportedProducts(chunk).size();
+            } catch (RuntimeException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    Product product = chunk.get(i);
+                    product.setId(null);
+                    try {
+                        productService.saveImportedProducts(List.of(product));
+                        imported++;
+                    } catch (RuntimeException rowError) {
+                        reject(chunkRows.get(i), "Ошибка сохранения: " + rowError.getMessage());
+                    }
+                }
+            }
+            chunk.clear();
+            chunkRows.clear();
+        }
+
+        /**
+         * Сохраняет остаток и формирует отчёт.
+         */
+        ImportReport finish() {
+            flush();
+            return new ImportReport(rows, imported, failed, errors);
+        }
+    }
+}
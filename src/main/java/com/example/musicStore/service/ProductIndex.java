@@ -0,0 +1,35 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.Product;
+
+import java.util.Collection;
+
+/**
+ * Интерфейс индекса каталога в памяти процесса, который {@link ProductService}
+ * один раз заполняет из базы данных и затем поддерживает инкрементально при сохранении и удалении продуктов.
+ * Реализация хранит у себя всё, что нужно для отмены вклада продукта, поэтому обновление не требует
+ * повторного чтения предыдущего состояния из базы данных.
+ */
+public interface ProductIndex {
+
+    /**
+     * Полностью перестраивает индекс по списку продуктов.
+     *
+     * @param products все продукты каталога
+     */
+    void rebuild(Collection<Product> products);
+
+    /**
+     * Добавляет продукт в индекс или заменяет его предыдущую версию.
+     *
+     * @param product сохранённый продукт
+     */
+    void update(Product product);
+
+    /**
+     * Удаляет продукт из индекса.
+     *
+     * @param productId идентификатор продукта
+     */
+    void remove(Long productId);
+}
@@ -0,0 +1,634 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.Product;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Полнотекстовый индекс каталога в памяти процесса (инвертированный индекс).
+ * Индексирует название, бренд, категорию и описание продукта с разными весами полей,
+ * ранжирует результаты по сумме весов совпавших терминов, умноженных на IDF.
+ * Все слова запроса должны встретиться в продукте; последнее слово дополнительно ищется как префикс,
+ * чтобы поиск работал по мере ввода.
+ * <p>
+ * Продуктам назначаются плотные внутренние номера, списки вхождений хранятся в примитивных массивах,
+ * а оценки накапливаются в переиспользуемых массивах, поэтому поиск не создаёт объект на каждого кандидата.
+ */
+@Component
+public class ProductSearchIndex implements ProductIndex {
+
+    /**
+     * Вес совпадения в названии продукта.
+     */
+    private static final float NAME_WEIGHT = 3.0f;
+
+    /**
+     * Вес совпадения в бренде продукта.
+     */
+    private static final float BRAND_WEIGHT = 2.0f;
+
+    /**
+     * Вес совпадения в категории продукта.
+     */
+    private static final float CATEGORY_WEIGHT = 2.0f;
+
+    /**
+     * Вес совпадения в описании продукта.
+     */
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    /**
+     * Множитель веса для совпадения по префиксу, а не по целому слову.
+     */
+    private static final double PREFIX_FACTOR = 0.7;
+
+    /**
+     * Максимальное количество терминов, в которые раскрывается префикс.
+     */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /**
+     * Списки вхождений по терминам.
+     */
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+
+    /**
+     * Внутренний номер документа по идентификатору продукта.
+     */
+    private final Map<Long, Integer> documents = new HashMap<>();
+
+    /**
+     * Идентификатор продукта по внутреннему номеру документа.
+     */
+    private long[] productIds = new long[1024];
+
+    /**
+     * Термины каждого документа, нужны для удаления продукта из индекса.
+     */
+    private String[][] documentTerms = new String[1024][];
+
+    /**
+     * Количество выданных внутренних номеров документов.
+     */
+    private int documentCount;
+
+    /**
+     * Освобождённые номера документов для повторного использования.
+     */
+    private final Deque<Integer> freeDocuments = new ArrayDeque<>();
+
+    /**
+     * Пул массивов для накопления оценок, по одному на одновременно выполняемый поиск.
+     */
+    private final Deque<Accumulator> accumulators = new ArrayDeque<>();
+
+    /**
+     * Блокировка чтения/записи индекса.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void rebuild(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            freeDocuments.clear();
+            documentCount = 0;
+            productIds = new long[Math.max(1024, products.size())];
+            documentTerms = new String[productIds.length][];
+            products.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Выполняет поиск и возвращает страницу идентификаторов продуктов в порядке убывания релевантности.
+     *
+     * @param query строка поиска
+     * @param offset смещение первого результата
+     * @param limit количество результатов на странице
+     * @return результат поиска с общим количеством найденных продуктов
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            List<TermMatcher> matchers = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                TermMatcher matcher = matcher(tokens.get(i), i == tokens.size() - 1);
+                if (matcher.documentFrequency == 0) {
+                    return new SearchResult(List.of(), 0);
+                }
+                matchers.add(matcher);
+            }
+            // Кандидатов берём из самого редкого слова, остальные слова только сужают их множество
+            matchers.sort(Comparator.comparingInt(matcher -> matcher.documentFrequency));
+            Accumulator accumulator = borrowAccumulator();
+            try {
+                int candidates = accumulator.seed(matchers.get(0));
+                for (int i = 1; i < matchers.size() && candidates > 0; i++) {
+                    candidates = accumulator.intersect(matchers.get(i));
+                }
+                return new SearchResult(accumulator.top(offset, limit, productIds), candidates);
+            } finally {
+                accumulator.reset();
+                releaseAccumulator(accumulator);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Собирает списки вхождений, соответствующие слову запроса, с весами IDF.
+     *
+     * @param token слово запроса
+     * @param allowPrefix искать ли также слова, начинающиеся с данного
+     * @return сопоставитель слова запроса
+     */
+    private TermMatcher matcher(String token, boolean allowPrefix) {
+        TermMatcher matcher = new TermMatcher();
+        Postings exact = postings.get(token);
+        if (exact != null) {
+            matcher.add(exact, idf(exact));
+        }
+        if (allowPrefix) {
+            SortedMap<String, Postings> expansions = postings.subMap(token, token + Character.MAX_VALUE);
+            int expanded = 0;
+            for (Map.Entry<String, Postings> entry : expansions.entrySet()) {
+                if (entry.getKey().equals(token)) {
+                    continue;
+                }
+                if (++expanded > MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                matcher.add(entry.getValue(), idf(entry.getValue()) * PREFIX_FACTOR);
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * Вычисляет обратную документную частоту термина.
+     *
+     * @param termPostings список вхождений термина
+     * @return значение IDF
+     */
+    private double idf(Postings termPostings) {
+        return Math.log(1.0 + (double) documents.size() / termPostings.size);
+    }
+
+    /**
+     * Выдаёт массив накопления оценок из пула или создаёт новый.
+     *
+     * @return массив накопления, вмещающий все текущие документы
+     */
+    private Accumulator borrowAccumulator() {
+        Accumulator accumulator;
+        synchronized (accumulators) {
+            accumulator = accumulators.poll();
+        }
+        if (accumulator == null) {
+            accumulator = new Accumulator();
+        }
+        accumulator.ensureCapacity(documentCount);
+        return accumulator;
+    }
+
+    /**
+     * Возвращает массив накопления в пул.
+     *
+     * @param accumulator массив накопления
+     */
+    private void releaseAccumulator(Accumulator accumulator) {
+        synchronized (accumulators) {
+            accumulators.push(accumulator);
+        }
+    }
+
+    /**
+     * Индексирует продукт.
+     *
+     * @param product продукт
+     */
+    private void add(Product product) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getBrand(), BRAND_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        int document = allocateDocument();
+        documents.put(product.getId(), document);
+        productIds[document] = product.getId();
+        documentTerms[document] = weights.keySet().toArray(new String[0]);
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new Postings()).add(document, weight));
+    }
+
+    /**
+     * Учитывает слова поля продукта с заданным весом.
+     *
+     * @param weights накопленные веса терминов продукта
+     * @param text текст поля
+     * @param weight вес поля
+     */
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Выделяет внутренний номер документа, по возможности повторно используя освобождённый.
+     *
+     * @return номер документа
+     */
+    private int allocateDocument() {
+        Integer free = freeDocuments.poll();
+        if (free != null) {
+            return free;
+        }
+        if (documentCount == productIds.length) {
+            productIds = Arrays.copyOf(productIds, documentCount * 2);
+            documentTerms = Arrays.copyOf(documentTerms, documentCount * 2);
+        }
+        return documentCount++;
+    }
+
+    /**
+     * Удаляет продукт из списков вхождений.
+     *
+     * @param productId идентификатор продукта
+     */
+    private void removeDocument(Long productId) {
+        Integer document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String term : documentTerms[document]) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(document);
+                if (termPostings.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        documentTerms[document] = null;
+        freeDocuments.push(document);
+    }
+
+    /**
+     * Разбивает текст на слова: приводит к нижнему регистру, заменяет «ё» на «е»
+     * и делит по любым символам, кроме букв и цифр.
+     *
+     * @param text исходный текст
+     * @return список слов без повторов в порядке появления
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Список вхождений термина: номера документов по возрастанию и взвешенные частоты в параллельных массивах.
+     * Упорядоченность позволяет проверять отдельный документ двоичным поиском.
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+
+        private float[] weights = new float[4];
+
+        private int size;
+
+        private void add(int document, float weight) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            int position = size == 0 || documents[size - 1] < document
+                    ? size
+                    : -Arrays.binarySearch(documents, 0, size, document) - 1;
+            System.arraycopy(documents, position, documents, position + 1, size - position);
+            System.arraycopy(weights, position, weights, position + 1, size - position);
+            documents[position] = document;
+            weights[position] = weight;
+            size++;
+        }
+
+        private void remove(int document) {
+            int position = Arrays.binarySearch(documents, 0, size, document);
+            if (position >= 0) {
+                System.arraycopy(documents, position + 1, documents, position, size - position - 1);
+                System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private float weightOf(int document) {
+            int position = Arrays.binarySearch(documents, 0, size, document);
+            return position >= 0 ? weights[position] : 0f;
+        }
+    }
+
+    /**
+     * Списки вхождений одного слова запроса (точное совпадение и раскрытые префиксы) с множителями веса.
+     */
+    private static final class TermMatcher {
+
+        private final List<Postings> postingLists = new ArrayList<>();
+
+        private final List<Double> factors = new ArrayList<>();
+
+        /**
+         * Оценка сверху количества продуктов, содержащих слово.
+         */
+        private int documentFrequency;
+
+        private void add(Postings termPostings, double factor) {
+            postingLists.add(termPostings);
+            factors.add(factor);
+            documentFrequency += termPostings.size;
+        }
+    }
+
+    /**
+     * Переиспользуемые массивы для накопления оценок документов во время одного поиска.
+     * Ненулевая оценка означает, что документ пока удовлетворяет всем обработанным словам запроса.
+     */
+    private static final class Accumulator {
+
+        private double[] scores = new double[0];
+
+        private double[] partial = new double[0];
+
+        private int[] candidates = new int[0];
+
+        private int candidateCount;
+
+        private void ensureCapacity(int documentCount) {
+            if (scores.length < documentCount) {
+                scores = new double[documentCount];
+                partial = new double[documentCount];
+                candidates = new int[documentCount];
+            }
+        }
+
+        /**
+         * Заполняет кандидатов документами первого (самого редкого) слова.
+         *
+         * @param matcher сопоставитель слова
+         * @return количество кандидатов
+         */
+        private int seed(TermMatcher matcher) {
+            for (int list = 0; list < matcher.postingLists.size(); list++) {
+                Postings termPostings = matcher.postingLists.get(list);
+                double factor = matcher.factors.get(list);
+                for (int i = 0; i < termPostings.size; i++) {
+                    int document = termPostings.documents[i];
+                    if (scores[document] == 0) {
+                        candidates[candidateCount++] = document;
+                    }
+                    scores[document] += termPostings.weights[i] * factor;
+                }
+            }
+            return candidateCount;
+        }
+
+        /**
+         * Оставляет только кандидатов, содержащих очередное слово, и добавляет его вклад в их оценки.
+         *
+         * @param matcher сопоставитель слова
+         * @return количество оставшихся кандидатов
+         */
+        private int intersect(TermMatcher matcher) {
+            for (int list = 0; list < matcher.postingLists.size(); list++) {
+                Postings termPostings = matcher.postingLists.get(list);
+                double factor = matcher.factors.get(list);
+                // Мало кандидатов и длинный список — дешевле проверить каждого кандидата двоичным поиском
+                if ((long) candidateCount * (32 - Integer.numberOfLeadingZeros(termPostings.size)) < termPostings.size) {
+                    for (int i = 0; i < candidateCount; i++) {
+                        int document = candidates[i];
+                        partial[document] += termPostings.weightOf(document) * factor;
+                    }
+                } else {
+                    for (int i = 0; i < termPostings.size; i++) {
+                        int document = termPostings.documents[i];
+                        if (scores[document] != 0) {
+                            partial[document] += termPostings.weights[i] * factor;
+                        }
+                    }
+                }
+            }
+            int kept = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                int document = candidates[i];
+                if (partial[document] != 0) {
+                    scores[document] += partial[document];
+                    partial[document] = 0;
+                    candidates[kept++] = document;
+                } else {
+                    scores[document] = 0;
+                }
+            }
+            candidateCount = kept;
+            return kept;
+        }
+
+        /**
+         * Выбирает страницу лучших кандидатов с помощью кучи ограниченного размера.
+         *
+         * @param offset смещение первого результата
+         * @param limit количество результатов
+         * @param productIds соответствие номеров документов идентификаторам продуктов
+         * @return идентификаторы продуктов в порядке убывания релевантности
+         */
+        private List<Long> top(int offset, int limit, long[] productIds) {
+            if (offset >= candidateCount || limit <= 0) {
+                return List.of();
+            }
+            int needed = (int) Math.min((long) offset + limit, candidateCount);
+            // Куча, в вершине которой худший из отобранных кандидатов
+            int[] heap = new int[needed];
+            int heapSize = 0;
+            for (int i = 0; i < candidateCount; i++) {
+                int document = candidates[i];
+                if (heapSize < needed) {
+                    heap[heapSize] = document;
+                    siftUp(heap, heapSize++, productIds);
+                } else if (better(document, heap[0], productIds)) {
+                    heap[0] = document;
+                    siftDown(heap, heapSize, productIds);
+                }
+            }
+            Integer[] ranked = new Integer[heapSize];
+            for (int i = 0; i < heapSize; i++) {
+                ranked[i] = heap[i];
+            }
+            Arrays.sort(ranked, (a, b) -> better(a, b, productIds) ? -1 : (better(b, a, productIds) ? 1 : 0));
+            List<Long> ids = new ArrayList<>(heapSize - offset);
+            for (int i = offset; i < heapSize; i++) {
+                ids.add(productIds[ranked[i]]);
+            }
+            return ids;
+        }
+
+        /**
+         * Сравнивает документы: выше оценка, при равенстве меньший идентификатор продукта.
+         */
+        private boolean better(int a, int b, long[] productIds) {
+            if (scores[a] != scores[b]) {
+                return scores[a] > scores[b];
+            }
+            return productIds[a] < productIds[b];
+        }
+
+        private void siftUp(int[] heap, int index, long[] productIds) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!better(heap[parent], heap[index], productIds)) {
+                    return;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int size, long[] productIds) {
+            int index = 0;
+            while (true) {
+                int worst = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && better(heap[worst], heap[left], productIds)) {
+                    worst = left;
+                }
+                if (right < size && better(heap[worst], heap[right], productIds)) {
+                    worst = right;
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(heap, index, worst);
+                index = worst;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int tmp = heap[i];
+            heap[i] = heap[j];
+            heap[j] = tmp;
+        }
+
+        /**
+         * Обнуляет оценки кандидатов, чтобы массивы можно было использовать повторно.
+         */
+        private void reset() {
+            for (int i = 0; i < candidateCount; i++) {
+                scores[candidates[i]] = 0;
+            }
+            candidateCount = 0;
+        }
+    }
+
+    /**
+     * Результат поиска: страница идентификаторов и общее количество найденных продуктов.
+     */
+    public static final class SearchResult {
+
+        /**
+         * Идентификаторы продуктов страницы в порядке убывания релевантности.
+         */
+        private final List<Long> ids;
+
+        /**
+         * Общее количество найденных продуктов.
+         */
+        private final int total;
+
+        /**
+         * Конструктор с указанием всех полей.
+         *
+         * @param ids идентификаторы продуктов страницы
+         * @param total общее количество найденных продуктов
+         */
+        public SearchResult(List<Long> ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
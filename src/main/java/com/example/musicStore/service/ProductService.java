@@ -1,15 +1,37 @@
 package com.example.musicStore.service;
 
+import com.example.musicStore.model.CacheStats;
+import com.example.musicStore.model.CursorPage;
+import com.example.musicStore.model.PageResponse;
+import com.example.musicStore.model.PriceHistogram;
 import com.example.musicStore.model.Product;
+import com.example.musicStore.model.ProductFacets;
+import com.example.musicStore.model.ProductFilter;
 import com.example.musicStore.repository.CartRepository;
-import com.example.musicStore.repository.OrderRepository;
+import com.example.musicStore.repository.OrderItemRepository;
 import com.example.musicStore.repository.ProductRepository;
+import com.example.musicStore.repository.ProductSpecifications;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,10 +53,105 @@ public class ProductService {
     private CartRepository cartRepository;
 
     /**
-     * Репозиторий для работы с заказами.
+     * Репозиторий для работы с позициями заказов.
      */
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+
+    /**
+     * Контекст персистентности для пакетного сохранения.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Потоковая запись JSON-массивов.
+     */
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
+    /**
+     * Версия каталога для ETag публичного API.
+     */
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    /**
+     * Индекс фасетов каталога.
+     */
+    @Autowired
+    private ProductFacetIndex facetIndex;
+
+    /**
+     * Индекс цен каталога.
+     */
+    @Autowired
+    private PriceBucketIndex priceIndex;
+
+    /**
+     * Полнотекстовый индекс каталога.
+     */
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    /**
+     * Все индексы каталога в памяти процесса.
+     */
+    @Autowired
+    private List<ProductIndex> productIndexes;
+
+    /**
+     * Сервис уменьшенных копий изображений; заполняет их URL в отдаваемых продуктах.
+     */
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    /**
+     * Монитор, под которым индексы загружаются и обновляются.
+     */
+    private final Object indexLock = new Object();
+
+    /**
+     * Признак того, что индексы каталога загружены из базы данных.
+     */
+    private volatile boolean indexesLoaded;
+
+    /**
+     * Максимальное количество продуктов в кэше.
+     */
+    @Value("${store.product-cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    /**
+     * Время жизни записей кэша каталога в секундах.
+     */
+    @Value("${store.product-cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    /**
+     * Кэш продуктов по идентификатору.
+     */
+    private TtlCache<Long, Product> productCache;
+
+    /**
+     * Кэш полного списка продуктов.
+     */
+    private TtlCache<String, List<Product>> productListCache;
+
+    /**
+     * Ключ кэша для полного списка продуктов.
+     */
+    private static final String ALL_PRODUCTS_KEY = "all";
+
+    /**
+     * Создаёт кэши каталога с параметрами из конфигурации.
+     */
+    @PostConstruct
+    void initCaches() {
+        long ttlMillis = cacheTtlSeconds * 1000;
+        productCache = new TtlCache<>("products", cacheMaxSize, ttlMillis);
+        productListCache = new TtlCache<>("product-lists", 1, ttlMillis);
+    }
 
     /**
      * Возвращает список всех продуктов.
@@ -42,7 +159,141 @@ public class ProductService {
      * @return список продуктов
      */
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return productListCache.get(ALL_PRODUCTS_KEY, key -> productRepository.findAll().stream()
+                .map(imageVariantService::withVariants)
+                .toList());
+    }
+
+    /**
+     * Записывает все продукты в выходной поток как JSON-массив, читая их курсором из базы данных.
+     * В отличие от {@link #getAllProducts()} не держит весь каталог в памяти.
+     *
+     * @param out выходной поток ответа
+     * @throws IOException если запись в выходной поток не удалась
+     */
+    @Transactional(readOnly = true)
+    public void streamAllProducts(OutputStream out) throws IOException {
+        jsonStreamWriter.writeArray(productRepository.streamAll().map(imageVariantService::withVariants), out);
+    }
+
+    /**
+     * Максимально допустимый размер страницы каталога.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Возвращает страницу продуктов, удовлетворяющих фильтру, в заданном порядке сортировки.
+     * Фильтрация, сортировка и разбиение на страницы выполняются одним запросом к базе данных;
+     * общее количество записей досчитывается отдельным COUNT только когда страница заполнена целиком.
+     *
+     * @param filter критерии фильтрации
+     * @param sort код сортировки (price-asc, price-desc, name-asc, name-desc) или null
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы
+     * @return страница продуктов с общим количеством записей
+     * @throws IllegalArgumentException если параметры страницы или сортировки некорректны
+     */
+    public PageResponse<Product> findProducts(ProductFilter filter, String sort, int page, int size) {
+        validatePage(page, size);
+        PageRequest pageRequest = PageRequest.of(page, size, resolveSort(sort));
+        Page<Product> result = productRepository.findAll(ProductSpecifications.byFilter(filter), pageRequest)
+                .map(imageVariantService::withVariants);
+        return new PageResponse<>(result.getContent(), page, size, result.getTotalElements(), result.getTotalPages());
+    }
+
+    /**
+     * Возвращает страницу каталога с курсорной (keyset) пагинацией.
+     * Вместо OFFSET запрос продолжает выборку с позиции (ключ сортировки, id) последней записи
+     * предыдущей страницы, поэтому стоимость любой страницы одинакова; общее количество не считается.
+     *
+     * @param filter критерии фильтрации
+     * @param sort код сортировки (price-asc, price-desc, name-asc, name-desc) или null для порядка по id
+     * @param cursor курсор из ответа на предыдущую страницу или null для первой страницы
+     * @param size размер страницы
+     * @return страница продуктов с курсором следующей страницы
+     * @throws IllegalArgumentException если сортировка, курсор или размер страницы некорректны
+     */
+    public CursorPage<Product> findProductsAfter(ProductFilter filter, String sort, String cursor, int size) {
+        KeysetCursor.validateSize(size);
+        KeysetOrder order = KeysetOrder.of(sort);
+        Specification<Product> spec = ProductSpecifications.byFilter(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            KeysetCursor after = KeysetCursor.decode(cursor, order.code);
+            spec = spec.and(order.after(after));
+        }
+        List<Product> rows = productRepository.findBy(spec, query -> query.sortBy(order.sort()).limit(size + 1).all());
+        rows.forEach(imageVariantService::withVariants);
+        return KeysetCursor.page(rows, size, order::cursorOf);
+    }
+
+    /**
+     * Выполняет полнотекстовый поиск по названию, описанию, бренду и категории продуктов.
+     * Поиск выполняется по индексу в памяти процесса; из базы данных загружается только
+     * найденная страница продуктов по первичному ключу.
+     *
+     * @param query строка поиска
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы
+     * @return страница продуктов в порядке убывания релевантности
+     * @throws IllegalArgumentException если параметры страницы некорректны
+     */
+    public PageResponse<Product> searchProducts(String query, int page, int size) {
+        validatePage(page, size);
+        ensureIndexesLoaded();
+        long offset = (long) page * size;
+        ProductSearchIndex.SearchResult result = searchIndex.search(query, (int) Math.min(offset, Integer.MAX_VALUE), size);
+        Map<Long, Product> found = productRepository.findAllById(result.getIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = result.getIds().stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .map(imageVariantService::withVariants)
+                .collect(Collectors.toList());
+        int totalPages = (result.getTotal() + size - 1) / size;
+        return new PageResponse<>(content, page, size, result.getTotal(), totalPages);
+    }
+
+    /**
+     * Проверяет параметры страницы.
+     *
+     * @param page номер страницы
+     * @param size размер страницы
+     * @throws IllegalArgumentException если параметры некорректны
+     */
+    private static void validatePage(int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Номер страницы не может быть отрицательным");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Преобразует код сортировки из интерфейса каталога в {@link Sort}.
+     * Идентификатор добавляется последним ключом, чтобы порядок страниц был стабильным.
+     *
+     * @param sort код сортировки или null
+     * @return объект сортировки
+     * @throws IllegalArgumentException если код сортировки неизвестен
+     */
+    static Sort resolveSort(String sort) {
+        Sort byId = Sort.by(Sort.Direction.ASC, "id");
+        if (sort == null || sort.isBlank()) {
+            return byId;
+        }
+        switch (sort) {
+            case "price-asc":
+                return Sort.by(Sort.Direction.ASC, "price").and(byId);
+            case "price-desc":
+                return Sort.by(Sort.Direction.DESC, "price").and(byId);
+            case "name-asc":
+                return Sort.by(Sort.Direction.ASC, "name").and(byId);
+            case "name-desc":
+                return Sort.by(Sort.Direction.DESC, "name").and(byId);
+            default:
+                throw new IllegalArgumentException("Неизвестный тип сортировки: " + sort);
+        }
     }
 
     /**
@@ -52,8 +303,7 @@ public class ProductService {
      * @return продукт или null, если продукт не найден
      */
     public Product getProductById(Long id) {
-        Optional<Product> product = productRepository.findById(id);
-        return product.orElse(null);
+        return productCache.get(id, key -> imageVariantService.withVariants(productRepository.findById(key).orElse(null)));
     }
 
     /**
@@ -62,11 +312,8 @@ public class ProductService {
      * @return множество категорий
      */
     public Set<String> getAllCategories() {
-        return productRepository.findAll()
-                .stream()
-                .map(Product::getCategory)
-                .filter(category -> category != null && !category.isEmpty())
-                .collect(Collectors.toSet());
+        ensureIndexesLoaded();
+        return facetIndex.getCategoryNames();
     }
 
     /**
@@ -75,11 +322,36 @@ public class ProductService {
      * @return множество брендов
      */
     public Set<String> getAllBrands() {
-        return productRepository.findAll()
-                .stream()
-                .map(Product::getBrand)
-                .filter(brand -> brand != null && !brand.isEmpty())
-                .collect(Collectors.toSet());
+        ensureIndexesLoaded();
+        return facetIndex.getBrandNames();
+    }
+
+    /**
+     * Возвращает фасеты каталога: категории и бренды с количеством продуктов и количеством продуктов в наличии.
+     *
+     * @return фасеты каталога
+     */
+    public ProductFacets getFacets() {
+        ensureIndexesLoaded();
+        return new ProductFacets(facetIndex.getCategories(), facetIndex.getBrands());
+    }
+
+    /**
+     * Возвращает гистограмму цен каталога или категории и количество продуктов в диапазоне цен.
+     * Строится по индексу в памяти процесса без запроса к базе данных.
+     *
+     * @param category категория или null для всего каталога
+     * @param minPrice нижняя граница диапазона или null
+     * @param maxPrice верхняя граница диапазона или null
+     * @return гистограмма цен
+     * @throws IllegalArgumentException если нижняя граница больше верхней
+     */
+    public PriceHistogram getPriceHistogram(String category, Double minPrice, Double maxPrice) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Минимальная цена больше максимальной");
+        }
+        ensureIndexesLoaded();
+        return priceIndex.histogram(category, minPrice, maxPrice);
     }
 
     /**
@@ -89,7 +361,38 @@ public class ProductService {
      * @return сохранённый продукт
      */
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        invalidateCaches(savedProduct.getId());
+        updateIndexes(savedProduct);
+        // Версия увеличивается последней: новый ETag не должен выдаваться вместе с данными из старого кэша
+        catalogVersion.bumpAfterCommit();
+        return imageVariantService.withVariants(savedProduct);
+    }
+
+    /**
+     * Сохраняет пачку новых продуктов одной транзакцией.
+     * Вставки отправляются пакетами JDBC, а идентификаторы берутся из пула последовательности,
+     * поэтому пачка не требует обращения к базе на каждую строку. После сброса контекст персистентности
+     * очищается, чтобы память не росла от пачки к пачке. Кэши, индексы и затем версия каталога обновляются
+     * только после фиксации транзакции.
+     *
+     * @param products новые продукты без идентификаторов
+     * @return сохранённые продукты
+     */
+    @Transactional
+    public List<Product> saveImportedProducts(List<Product> products) {
+        List<Product> saved = productRepository.saveAll(products);
+        entityManager.flush();
+        entityManager.clear();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                productListCache.invalidateAll();
+                saved.forEach(product -> updateIndexes(product));
+                catalogVersion.bump();
+            }
+        });
+        return saved;
     }
 
     /**
@@ -105,12 +408,175 @@ public class ProductService {
         });
 
         // Удаляем товар из всех заказов
-        orderRepository.findAll().forEach(order -> {
-            order.getProducts().removeIf(product -> product.getId().equals(id));
-            orderRepository.save(order);
-        });
+        orderItemRepository.deleteByProductId(id);
 
         // Удаляем сам товар
         productRepository.deleteById(id);
+        invalidateCaches(id);
+        removeFromIndexes(id);
+        catalogVersion.bumpAfterCommit();
+    }
+
+    /**
+     * Инвалидирует кэшированные данные каталога после изменения продукта.
+     *
+     * @param productId идентификатор изменённого продукта
+     */
+    private void invalidateCaches(Long productId) {
+        productCache.invalidate(productId);
+        productListCache.invalidateAll();
+    }
+
+    /**
+     * Загружает индексы каталога из базы данных при первом обращении.
+     * Загрузка и инкрементальные обновления выполняются под одним монитором,
+     * поэтому изменение, сохранённое во время загрузки, не теряется.
+     */
+    private void ensureIndexesLoaded() {
+        if (indexesLoaded) {
+            return;
+        }
+        synchronized (indexLock) {
+            if (indexesLoaded) {
+                return;
+            }
+            List<Product> products = productRepository.findAll();
+            productIndexes.forEach(index -> index.rebuild(products));
+            indexesLoaded = true;
+        }
+    }
+
+    /**
+     * Применяет сохранённый продукт ко всем загруженным индексам каталога.
+     *
+     * @param product сохранённый продукт
+     */
+    private void updateIndexes(Product product) {
+        synchronized (indexLock) {
+            if (indexesLoaded) {
+                productIndexes.forEach(index -> index.update(product));
+            }
+        }
+    }
+
+    /**
+     * Удаляет продукт из всех загруженных индексов каталога.
+     *
+     * @param productId идентификатор продукта
+     */
+    private void removeFromIndexes(Long productId) {
+        synchronized (indexLock) {
+            if (indexesLoaded) {
+                productIndexes.forEach(index -> index.remove(productId));
+            }
+        }
+    }
+
+    /**
+     * Возвращает статистику кэшей каталога.
+     *
+     * @return список снимков статистики
+     */
+    public List<CacheStats> getCacheStats() {
+        return List.of(productCache.stats(), productListCache.stats());
+    }
+
+    /**
+     * Порядки сортировки каталога, поддерживаемые курсорной пагинацией.
+     */
+    private enum KeysetOrder {
+        ID("id", "id", false, false),
+        PRICE_ASC("price-asc", "price", false, false),
+        PRICE_DESC("price-desc", "price", true, false),
+        NAME_ASC("name-asc", "name", false, true),
+        NAME_DESC("name-desc", "name", true, true);
+
+        private final String code;
+
+        private final String attribute;
+
+        private final boolean descending;
+
+        private final boolean nullable;
+
+        KeysetOrder(String code, String attribute, boolean descending, boolean nullable) {
+            this.code = code;
+            this.attribute = attribute;
+            this.descending = descending;
+            this.nullable = nullable;
+        }
+
+        /**
+         * Находит порядок по коду сортировки из интерфейса каталога.
+         *
+         * @param sort код сортировки или null
+         * @return порядок сортировки
+         * @throws IllegalArgumentException если код неизвестен
+         */
+        static KeysetOrder of(String sort) {
+            if (sort == null || sort.isBlank()) {
+                return ID;
+            }
+            for (KeysetOrder order : values()) {
+                if (order.code.equals(sort)) {
+                    return order;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестный тип сортировки: " + sort);
+        }
+
+        /**
+         * Возвращает сортировку выборки: ключ и идентификатор в одном направлении.
+         *
+         * @return сортировка
+         */
+        Sort sort() {
+            Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            Sort byId = Sort.by(direction, "id");
+            return this == ID ? byId : Sort.by(direction, attribute).and(byId);
+        }
+
+        /**
+         * Строит курсор по последнему продукту страницы.
+         *
+         * @param product продукт
+         * @return курсор
+         */
+        KeysetCursor cursorOf(Product product) {
+            String key;
+            switch (attribute) {
+                case "price":
+                    key = Double.toString(product.getPrice());
+                    break;
+                case "name":
+                    key = product.getName();
+                    break;
+                default:
+                    key = null;
+            }
+            return new KeysetCursor(code, product.getId(), key);
+        }
+
+        /**
+         * Строит условие продолжения выборки после позиции курсора.
+         *
+         * @param cursor курсор
+         * @return спецификация
+         * @throws IllegalArgumentException если значение ключа в курсоре повреждено
+         */
+        Specification<Product> after(KeysetCursor cursor) {
+            if ("price".equals(attribute)) {
+                if (cursor.getKey() == null) {
+                    throw new IllegalArgumentException("Некорректный курсор");
+                }
+                try {
+                    Double price = Double.valueOf(cursor.getKey());
+                    return ProductSpecifications.after(attribute, descending, nullable, price, cursor.getId());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Некорректный курсор");
+                }
+            }
+            return ProductSpecifications.after(attribute, descending, nullable, cursor.getKey(), cursor.getId());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,242 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.Order;
+import com.example.musicStore.model.OrderItem;
+import com.example.musicStore.model.Product;
+import com.example.musicStore.model.ProductSales;
+import com.example.musicStore.model.SalesBucket;
+import com.example.musicStore.model.SalesWindow;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис аналитики продаж по времени.
+ * Количество заказов и выручка хранятся в памяти в кольцевых рядах {@link SalesRing} по минутам, часам и дням,
+ * продажи по продуктам — по минутам и часам. При запуске ряды заполняются агрегирующими запросами
+ * к таблицам заказов, затем каждый оформленный заказ учитывается после фиксации транзакции,
+ * поэтому графики и скользящие окна читаются без обращения к истории заказов.
+ * Ряды локальны для процесса: заказы, оформленные другими экземплярами приложения, учитываются
+ * только после перезапуска.
+ */
+@Service
+public class SalesAnalyticsService {
+
+    /**
+     * Количество заказов и выручка по интервалам с указанного момента.
+     */
+    private static final String ORDERS_ROLLUP_SQL =
+            "SELECT date_trunc(?, o.order_date), count(*), sum(o.total_price) FROM orders o " +
+            "WHERE o.order_date >= ? GROUP BY 1";
+
+    /**
+     * Продажи по продуктам и интервалам с указанного момента.
+     */
+    private static final String PRODUCTS_ROLLUP_SQL =
+            "SELECT date_trunc(?, o.order_date), i.product_id, sum(i.quantity), sum(i.quantity * i.unit_price) " +
+            "FROM order_items i JOIN orders o ON o.id = i.order_id " +
+            "WHERE o.order_date >= ? GROUP BY 1, 2";
+
+    /**
+     * Длина минуты в секундах.
+     */
+    private static final long MINUTE = 60;
+
+    /**
+     * Длина часа в секундах.
+     */
+    private static final long HOUR = 60 * MINUTE;
+
+    /**
+     * Длина дня в секундах.
+     */
+    private static final long DAY = 24 * HOUR;
+
+    /**
+     * Максимальное количество продуктов в окне.
+     */
+    public static final int MAX_TOP_PRODUCTS = 100;
+
+    /**
+     * Количество хранимых минутных интервалов.
+     */
+    @Value("${store.analytics.minute-buckets:1440}")
+    private int minuteBuckets;
+
+    /**
+     * Количество хранимых часовых интервалов.
+     */
+    @Value("${store.analytics.hour-buckets:168}")
+    private int hourBuckets;
+
+    /**
+     * Количество хранимых дневных интервалов.
+     */
+    @Value("${store.analytics.day-buckets:90}")
+    private int dayBuckets;
+
+    /**
+     * Выполнение агрегирующих запросов при запуске.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Сервис для работы с продуктами; используется для названий продуктов.
+     */
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Продажи по минутам.
+     */
+    private SalesRing minutes;
+
+    /**
+     * Продажи по часам.
+     */
+    private SalesRing hours;
+
+    /**
+     * Продажи по дням.
+     */
+    private SalesRing days;
+
+    /**
+     * Создаёт ряды и заполняет их по таблицам заказов.
+     *
+     * @throws IllegalStateException если настройки некорректны
+     */
+    @PostConstruct
+    void init() {
+        if (minuteBuckets < 60 || hourBuckets < 168 || dayBuckets < 1) {
+            throw new IllegalStateException("Ряды аналитики должны хранить не меньше часа по минутам и недели по часам");
+        }
+        minutes = new SalesRing(MINUTE, minuteBuckets, true);
+        hours = new SalesRing(HOUR, hourBuckets, true);
+        days = new SalesRing(DAY, dayBuckets, false);
+
+        LocalDateTime now = LocalDateTime.now();
+        backfill(minutes, "minute", now.truncatedTo(ChronoUnit.MINUTES).minusMinutes(minuteBuckets - 1), true);
+        backfill(hours, "hour", now.truncatedTo(ChronoUnit.HOURS).minusHours(hourBuckets - 1), true);
+        backfill(days, "day", now.truncatedTo(ChronoUnit.DAYS).minusDays(dayBuckets - 1), false);
+    }
+
+    /**
+     * Учитывает оформленный заказ после фиксации текущей транзакции.
+     *
+     * @param order заказ с позициями
+     */
+    public void recordOrder(Order order) {
+        LocalDateTime orderDate = order.getOrderDate();
+        double totalPrice = order.getTotalPrice();
+        List<OrderItem> items = List.copyOf(order.getItems());
+        Runnable record = () -> {
+            for (SalesRing ring : List.of(minutes, hours, days)) {
+                ring.add(orderDate, 1, totalPrice);
+                for (OrderItem item : items) {
+                    ring.addProduct(orderDate, item.getProduct().getId(), item.getQuantity(), item.getLineTotal());
+                }
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record.run();
+            }
+        });
+    }
+
+    /**
+     * Возвращает график продаж: последние интервалы указанной длины, заканчивая текущим.
+     *
+     * @param resolution длина интервала: minute, hour или day
+     * @param points количество интервалов
+     * @return интервалы в порядке от старых к новым, включая интервалы без заказов
+     * @throws IllegalArgumentException если длина интервала неизвестна или интервалов больше, чем хранится
+     */
+    public List<SalesBucket> getSeries(String resolution, int points) {
+        SalesRing ring = switch (resolution) {
+            case "minute" -> minutes;
+            case "hour" -> hours;
+            case "day" -> days;
+            default -> throw new IllegalArgumentException("Неизвестная длина интервала: " + resolution);
+        };
+        if (points < 1 || points > ring.capacity()) {
+            throw new IllegalArgumentException("Количество интервалов должно быть от 1 до " + ring.capacity());
+        }
+        return ring.series(LocalDateTime.now(), points);
+    }
+
+    /**
+     * Возвращает продажи за скользящие окна 1h, 24h и 7d. Окно 1h выровнено по минутам,
+     * окна 24h и 7d — по часам и включают текущий неполный час.
+     *
+     * @param limit количество самых продаваемых продуктов в каждом окне
+     * @return окна продаж
+     * @throws IllegalArgumentException если количество продуктов некорректно
+     */
+    public List<SalesWindow> getWindows(int limit) {
+        if (limit < 0 || limit > MAX_TOP_PRODUCTS) {
+            throw new IllegalArgumentException("Количество продуктов должно быть от 0 до " + MAX_TOP_PRODUCTS);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return List.of(
+                window("1h", minutes, 60, now, limit),
+                window("24h", hours, 24, now, limit),
+                window("7d", hours, 168, now, limit));
+    }
+
+    /**
+     * Собирает окно продаж из последних интервалов ряда.
+     *
+     * @param name название окна
+     * @param ring ряд
+     * @param buckets количество интервалов
+     * @param now текущий момент
+     * @param limit количество продуктов
+     * @return окно продаж
+     */
+    private SalesWindow window(String name, SalesRing ring, int buckets, LocalDateTime now, int limit) {
+        SalesBucket total = ring.total(now, buckets);
+        List<ProductSales> top = new ArrayList<>();
+        for (ProductSales sales : ring.topProducts(now, buckets, limit)) {
+            Product product = productService.getProductById(sales.getProductId());
+            top.add(sales.withName(product == null ? null : product.getName()));
+        }
+        return new SalesWindow(name, total.getStart(), total.getOrderCount(), total.getRevenue(), top);
+    }
+
+    /**
+     * Заполняет ряд агрегатами заказов с указанного момента.
+     *
+     * @param ring ряд
+     * @param unit единица date_trunc, совпадающая с длиной интервала ряда
+     * @param since начало самого старого хранимого интервала
+     * @param withProducts заполнять ли продажи по продуктам
+     */
+    private void backfill(SalesRing ring, String unit, LocalDateTime since, boolean withProducts) {
+        jdbcTemplate.query(ORDERS_ROLLUP_SQL, rs -> {
+            ring.add(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), rs.getDouble(3));
+        }, unit, since);
+        if (!withProducts) {
+            return;
+        }
+        jdbcTemplate.query(PRODUCTS_ROLLUP_SQL, rs -> {
+            ring.addProduct(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), rs.getLong(3), rs.getDouble(4));
+        }, unit, since);
+    }
+}
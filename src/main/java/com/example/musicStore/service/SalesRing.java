@@ -0,0 +1,267 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.ProductSales;
+import com.example.musicStore.model.SalesBucket;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кольцевой временной ряд продаж в памяти процесса: фиксированное число интервалов одинаковой длины,
+ * каждый со счётчиком заказов, выручкой и, при необходимости, продажами по продуктам.
+ * Интервал номер n хранится в ячейке n по модулю ёмкости; запись в интервал, которого ещё нет в ячейке,
+ * атомарно заменяет в ней более старый интервал, а запись в интервал старше хранящегося отбрасывается.
+ * Запись и чтение выполняются без блокировок; чтение видит интервалы, заполненные на момент чтения.
+ */
+public class SalesRing {
+
+    /**
+     * Длина интервала в секундах.
+     */
+    private final long bucketSeconds;
+
+    /**
+     * Признак учёта продаж по продуктам.
+     */
+    private final boolean trackProducts;
+
+    /**
+     * Ячейки кольца.
+     */
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * Конструктор с указанием параметров ряда.
+     *
+     * @param bucketSeconds длина интервала в секундах
+     * @param capacity количество хранимых интервалов
+     * @param trackProducts учитывать ли продажи по продуктам
+     */
+    public SalesRing(long bucketSeconds, int capacity, boolean trackProducts) {
+        if (bucketSeconds < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Длина интервала и ёмкость ряда должны быть положительными");
+        }
+        this.bucketSeconds = bucketSeconds;
+        this.trackProducts = trackProducts;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Возвращает количество хранимых интервалов.
+     *
+     * @return ёмкость ряда
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    /**
+     * Учитывает заказы в интервале, содержащем указанный момент.
+     *
+     * @param time момент заказа
+     * @param orders количество заказов
+     * @param revenue выручка
+     */
+    public void add(LocalDateTime time, long orders, double revenue) {
+        Slot slot = slot(bucketOf(time), true);
+        if (slot != null) {
+            slot.orders.add(orders);
+            slot.revenue.add(revenue);
+        }
+    }
+
+    /**
+     * Учитывает продажи продукта в интервале, содержащем указанный момент.
+     * Без учёта продаж по продуктам ничего не делает.
+     *
+     * @param time момент заказа
+     * @param productId идентификатор продукта
+     * @param quantity количество проданных единиц
+     * @param revenue выручка по продукту
+     */
+    public void addProduct(LocalDateTime time, Long productId, long quantity, double revenue) {
+        if (!trackProducts) {
+            return;
+        }
+        Slot slot = slot(bucketOf(time), true);
+        if (slot != null) {
+            ProductCounter counter = slot.products.computeIfAbsent(productId, id -> new ProductCounter());
+            counter.quantity.add(quantity);
+            counter.revenue.add(revenue);
+        }
+    }
+
+    /**
+     * Возвращает последние интервалы ряда, заканчивая интервалом, содержащим указанный момент.
+     * Интервалы без заказов возвращаются с нулевыми значениями.
+     *
+     * @param now текущий момент
+     * @param points количество интервалов, не больше ёмкости
+     * @return интервалы в порядке от старых к новым
+     */
+    public List<SalesBucket> series(LocalDateTime now, int points) {
+        long last = bucketOf(now);
+        List<SalesBucket> series = new ArrayList<>(points);
+        for (long bucket = last - points + 1; bucket <= last; bucket++) {
+            Slot slot = slot(bucket, false);
+            series.add(slot == null ? new SalesBucket(startOf(bucket), 0, 0)
+                    : new SalesBucket(startOf(bucket), slot.orders.sum(), slot.revenue.sum()));
+        }
+        return series;
+    }
+
+    /**
+     * Возвращает итоги последних интервалов ряда, заканчивая интервалом, содержащим указанный момент.
+     *
+     * @param now текущий момент
+     * @param buckets количество интервалов, не больше ёмкости
+     * @return итоги с началом первого интервала
+     */
+    public SalesBucket total(LocalDateTime now, int buckets) {
+        long last = bucketOf(now);
+        long orders = 0;
+        double revenue = 0;
+        for (long bucket = last - buckets + 1; bucket <= last; bucket++) {
+            Slot slot = slot(bucket, false);
+            if (slot != null) {
+                orders += slot.orders.sum();
+                revenue += slot.revenue.sum();
+            }
+        }
+        return new SalesBucket(startOf(last - buckets + 1), orders, revenue);
+    }
+
+    /**
+     * Возвращает продукты с наибольшим количеством проданных единиц за последние интервалы ряда.
+     *
+     * @param now текущий момент
+     * @param buckets количество интервалов, не больше ёмкости
+     * @param limit максимальное количество продуктов
+     * @return продажи продуктов без названий, по убыванию количества единиц
+     */
+    public List<ProductSales> topProducts(LocalDateTime now, int buckets, int limit) {
+        if (!trackProducts) {
+            return List.of();
+        }
+        long last = bucketOf(now);
+        Map<Long, double[]> totals = new HashMap<>();
+        for (long bucket = last - buckets + 1; bucket <= last; bucket++) {
+            Slot slot = slot(bucket, false);
+            if (slot == null) {
+                continue;
+            }
+            slot.products.forEach((productId, counter) -> {
+                double[] total = totals.computeIfAbsent(productId, id -> new double[2]);
+                total[0] += counter.quantity.sum();
+                total[1] += counter.revenue.sum();
+            });
+        }
+        return totals.entrySet().stream()
+                .map(e -> new ProductSales(e.getKey(), null, (long) e.getValue()[0], e.getValue()[1]))
+                .sorted(Comparator.comparingLong(ProductSales::getQuantity).reversed()
+                        .thenComparing(Comparator.comparingDouble(ProductSales::getRevenue).reversed())
+                        .thenComparing(ProductSales::getProductId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Возвращает номер интервала, содержащего указанный момент.
+     *
+     * @param time момент времени
+     * @return номер интервала
+     */
+    private long bucketOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds);
+    }
+
+    /**
+     * Возвращает начало интервала по его номеру.
+     *
+     * @param bucket номер интервала
+     * @return начало интервала
+     */
+    private LocalDateTime startOf(long bucket) {
+        return LocalDateTime.ofEpochSecond(bucket * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Возвращает ячейку с указанным интервалом, при необходимости заменяя в ней более старый интервал.
+     *
+     * @param bucket номер интервала
+     * @param create создавать ли интервал, если его нет
+     * @return ячейка или null, если интервала нет или он уже вытеснен более новым
+     */
+    private Slot slot(long bucket, boolean create) {
+        int index = (int) Math.floorMod(bucket, (long) slots.length());
+        while (true) {
+            Slot current = slots.get(index);
+            if (current != null && current.bucket == bucket) {
+                return current;
+            }
+            if (!create || (current != null && current.bucket > bucket)) {
+                return null;
+            }
+            Slot fresh = new Slot(bucket, trackProducts);
+            if (slots.compareAndSet(index, current, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    /**
+     * Ячейка кольца: счётчики одного интервала.
+     */
+    private static final class Slot {
+
+        /**
+         * Номер интервала.
+         */
+        private final long bucket;
+
+        /**
+         * Количество заказов.
+         */
+        private final LongAdder orders = new LongAdder();
+
+        /**
+         * Выручка.
+         */
+        private final DoubleAdder revenue = new DoubleAdder();
+
+        /**
+         * Продажи по продуктам или null без учёта продуктов.
+         */
+        private final Map<Long, ProductCounter> products;
+
+        private Slot(long bucket, boolean trackProducts) {
+            this.bucket = bucket;
+            this.products = trackProducts ? new ConcurrentHashMap<>() : null;
+        }
+    }
+
+    /**
+     * Счётчики продаж продукта в интервале.
+     */
+    private static final class ProductCounter {
+
+        /**
+         * Количество проданных единиц.
+         */
+        private final LongAdder quantity = new LongAdder();
+
+        /**
+         * Выручка по продукту.
+         */
+        private final DoubleAdder revenue = new DoubleAdder();
+    }
+}
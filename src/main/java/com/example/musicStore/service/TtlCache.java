@@ -0,0 +1,194 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CacheStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру кэш в памяти процесса с вытеснением по времени жизни (TTL) и по давности использования (LRU).
+ * Загрузка значения выполняется вне блокировки; если во время загрузки кэш был инвалидирован,
+ * загруженное значение не сохраняется, чтобы не вернуть в кэш устаревшие данные.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class TtlCache<K, V> {
+
+    /**
+     * Имя кэша для статистики.
+     */
+    private final String name;
+
+    /**
+     * Максимальное количество записей.
+     */
+    private final int maxSize;
+
+    /**
+     * Время жизни записи в миллисекундах.
+     */
+    private final long ttlMillis;
+
+    /**
+     * Записи кэша в порядке доступа (для вытеснения LRU).
+     */
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Поколение кэша, увеличивается при каждой инвалидации.
+     */
+    private long generation;
+
+    /**
+     * Счётчик попаданий.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Счётчик промахов.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Счётчик вытеснений по размеру и по истечении срока жизни.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Конструктор с указанием параметров кэша.
+     *
+     * @param name имя кэша
+     * @param maxSize максимальное количество записей
+     * @param ttlMillis время жизни записи в миллисекундах
+     */
+    public TtlCache(String name, int maxSize, long ttlMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его с помощью загрузчика.
+     * Значения null не кэшируются.
+     *
+     * @param key ключ
+     * @param loader функция загрузки значения при промахе
+     * @return значение или null, если загрузчик вернул null
+     */
+    public V get(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                evictions.increment();
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Атомарно сохраняет значение, если по ключу нет действующей записи.
+     *
+     * @param key ключ
+     * @param value значение
+     * @return действующее значение из кэша или null, если сохранено переданное значение
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.value;
+            }
+            evictions.increment();
+        }
+        misses.increment();
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        return null;
+    }
+
+    /**
+     * Удаляет запись по ключу.
+     *
+     * @param key ключ
+     */
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    /**
+     * Удаляет все записи кэша.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    /**
+     * Возвращает снимок статистики кэша.
+     *
+     * @return статистика кэша
+     */
+    public CacheStats stats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new CacheStats(name, size, maxSize, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Запись кэша со временем истечения.
+     *
+     * @param <V> тип значения
+     */
+    private static final class Entry<V> {
+
+        /**
+         * Кэшированное значение.
+         */
+        private final V value;
+
+        /**
+         * Момент истечения срока жизни (мс).
+         */
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
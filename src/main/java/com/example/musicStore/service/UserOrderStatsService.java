@@ -0,0 +1,328 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.PageResponse;
+import com.example.musicStore.model.UserOrderMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сервис накопленных итогов заказов по пользователям.
+ * Итоги хранятся в таблице user_order_stats и в копии в памяти процесса. Таблица обновляется в транзакции
+ * оформления заказа и удаления пользователя, копия — после фиксации этих транзакций. Метрики без периода
+ * читаются из копии: отсортированные списки пересобираются только после изменений, а страница берётся
+ * из готового списка.
+ * Копия периодически перечитывается из таблицы (изменения с других экземпляров приложения), а таблица
+ * по расписанию сверяется с таблицей заказов, что исправляет возможное расхождение.
+ */
+@Service
+public class UserOrderStatsService {
+
+    /**
+     * Учёт нового заказа пользователя.
+     */
+    private static final String RECORD_ORDER_SQL =
+            "INSERT INTO user_order_stats (user_id, order_count, total_price) VALUES (?, 1, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET order_count = user_order_stats.order_count + 1, " +
+            "total_price = user_order_stats.total_price + EXCLUDED.total_price";
+
+    /**
+     * Удаление итогов пользователя.
+     */
+    private static final String DELETE_USER_SQL = "DELETE FROM user_order_stats WHERE user_id = ?";
+
+    /**
+     * Пересчёт итогов по таблице заказов; строки без расхождений не переписываются.
+     */
+    private static final String REBUILD_SQL =
+            "INSERT INTO user_order_stats (user_id, order_count, total_price) " +
+            "SELECT o.user_id, count(*), sum(o.total_price) FROM orders o WHERE o.user_id IS NOT NULL " +
+            "GROUP BY o.user_id " +
+            "ON CONFLICT (user_id) DO UPDATE SET order_count = EXCLUDED.order_count, total_price = EXCLUDED.total_price " +
+            "WHERE user_order_stats.order_count <> EXCLUDED.order_count " +
+            "OR user_order_stats.total_price <> EXCLUDED.total_price";
+
+    /**
+     * Удаление итогов пользователей, у которых не осталось заказов.
+     */
+    private static final String DELETE_ORPHANS_SQL =
+            "DELETE FROM user_order_stats s WHERE NOT EXISTS (SELECT 1 FROM orders o WHERE o.user_id = s.user_id)";
+
+    /**
+     * Чтение всех итогов вместе с именами пользователей.
+     */
+    private static final String LOAD_SQL =
+            "SELECT s.user_id, u.username, s.order_count, s.total_price " +
+            "FROM user_order_stats s JOIN users u ON u.id = s.user_id";
+
+    /**
+     * Проверка, нужно ли заполнить пустую таблицу итогов при первом запуске.
+     */
+    private static final String NEEDS_INITIAL_BUILD_SQL =
+            "SELECT NOT EXISTS (SELECT 1 FROM user_order_stats) AND EXISTS (SELECT 1 FROM orders)";
+
+    /**
+     * Порядок по убыванию количества заказов.
+     */
+    private static final Comparator<UserOrderMetrics> BY_ORDER_COUNT =
+            Comparator.comparingLong(UserOrderMetrics::getOrderCount).reversed()
+                    .thenComparing(UserOrderMetrics::getUsername);
+
+    /**
+     * Порядок по убыванию общей стоимости заказов.
+     */
+    private static final Comparator<UserOrderMetrics> BY_TOTAL_PRICE =
+            Comparator.comparingDouble(UserOrderMetrics::getTotalPrice).reversed()
+                    .thenComparing(UserOrderMetrics::getUsername);
+
+    /**
+     * Выполнение операторов JDBC.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Транзакция пересчёта итогов.
+     */
+    private final TransactionTemplate rebuildTransaction;
+
+    /**
+     * Копия итогов в памяти по идентификатору пользователя.
+     */
+    private final Map<Long, UserOrderMetrics> mirror = new ConcurrentHashMap<>();
+
+    /**
+     * Признак того, что копия загружена из таблицы.
+     */
+    private volatile boolean loaded;
+
+    /**
+     * Счётчик изменений копии итогов; отсортированный список действителен, пока счётчик не изменился.
+     */
+    private final AtomicLong modifications = new AtomicLong();
+
+    /**
+     * Итоги, отсортированные по количеству заказов, или null до первого запроса.
+     */
+    private volatile SortedMetrics byOrderCount;
+
+    /**
+     * Итоги, отсортированные по общей стоимости заказов, или null до первого запроса.
+     */
+    private volatile SortedMetrics byTotalPrice;
+
+    /**
+     * Конструктор с указанием менеджера транзакций.
+     *
+     * @param transactionManager менеджер транзакций приложения
+     */
+    public UserOrderStatsService(PlatformTransactionManager transactionManager) {
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Учитывает новый заказ пользователя в транзакции вызывающего кода; копия в памяти обновляется
+     * после фиксации транзакции.
+     *
+     * @param userId идентификатор пользователя
+     * @param username имя пользователя
+     * @param totalPrice стоимость заказа
+     */
+    public void recordOrder(Long userId, String username, double totalPrice) {
+        jdbcTemplate.update(RECORD_ORDER_SQL, userId, totalPrice);
+        afterCommit(() -> {
+            mirror.merge(userId, new UserOrderMetrics(username, 1L, totalPrice), (current, order) ->
+                    new UserOrderMetrics(username, current.getOrderCount() + 1, current.getTotalPrice() + totalPrice));
+            invalidateSorted();
+        });
+    }
+
+    /**
+     * Удаляет итоги пользователя в транзакции вызывающего кода; копия в памяти обновляется
+     * после фиксации транзакции.
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void removeUser(Long userId) {
+        jdbcTemplate.update(DELETE_USER_SQL, userId);
+        afterCommit(() -> {
+            mirror.remove(userId);
+            invalidateSorted();
+        });
+    }
+
+    /**
+     * Проверяет, загружены ли итоги в память.
+     *
+     * @return true, если метрики можно читать из памяти
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Возвращает страницу итогов, начиная с пользователей с наибольшим количеством заказов.
+     *
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы
+     * @return страница метрик
+     */
+    public PageResponse<UserOrderMetrics> pageByOrderCount(int page, int size) {
+        SortedMetrics sorted = byOrderCount;
+        if (sorted == null || sorted.modification != modifications.get()) {
+            sorted = sort(BY_ORDER_COUNT);
+            byOrderCount = sorted;
+        }
+        return page(sorted.metrics, page, size);
+    }
+
+    /**
+     * Возвращает страницу итогов, начиная с пользователей с наибольшей общей стоимостью заказов.
+     *
+     * @param page номер страницы (начиная с 0)
+     * @param size размер страницы
+     * @return страница метрик
+     */
+    public PageResponse<UserOrderMetrics> pageByTotalPrice(int page, int size) {
+        SortedMetrics sorted = byTotalPrice;
+        if (sorted == null || sorted.modification != modifications.get()) {
+            sorted = sort(BY_TOTAL_PRICE);
+            byTotalPrice = sorted;
+        }
+        return page(sorted.metrics, page, size);
+    }
+
+    /**
+     * Перечитывает копию итогов из таблицы. При первом запуске пустая таблица заполняется
+     * по таблице заказов.
+     */
+    @Scheduled(fixedDelayString = "${store.order-stats.reload-interval-ms:60000}")
+    public void reload() {
+        try {
+            if (!loaded && Boolean.TRUE.equals(jdbcTemplate.queryForObject(NEEDS_INITIAL_BUILD_SQL, Boolean.class))) {
+                rebuildTransaction.executeWithoutResult(status -> {
+                    jdbcTemplate.update(REBUILD_SQL);
+                    jdbcTemplate.update(DELETE_ORPHANS_SQL);
+                });
+            }
+            load();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Сверяет таблицу итогов с таблицей заказов и перечитывает копию в памяти.
+     * Заказ, зафиксированный во время сверки, может быть учтён не полностью до следующей сверки.
+     *
+     * @return количество исправленных и удалённых строк итогов
+     */
+    @Scheduled(cron = "${store.order-stats.rebuild-cron:0 30 3 * * *}")
+    public int rebuild() {
+        Integer changed = rebuildTransaction.execute(status ->
+                jdbcTemplate.update(REBUILD_SQL) + jdbcTemplate.update(DELETE_ORPHANS_SQL));
+        load();
+        return changed == null ? 0 : changed;
+    }
+
+    /**
+     * Загружает копию итогов из таблицы.
+     */
+    private void load() {
+        Map<Long, UserOrderMetrics> rows = new ConcurrentHashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            rows.put(rs.getLong(1), new UserOrderMetrics(rs.getString(2), rs.getLong(3), rs.getDouble(4)));
+        });
+        mirror.keySet().retainAll(rows.keySet());
+        mirror.putAll(rows);
+        invalidateSorted();
+        loaded = true;
+    }
+
+    /**
+     * Делает отсортированные списки итогов недействительными после изменения копии.
+     */
+    private void invalidateSorted() {
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * Сортирует снимок копии итогов. Счётчик изменений читается до снимка, поэтому список,
+     * собранный во время изменения копии, не считается действительным после него.
+     *
+     * @param order порядок сортировки
+     * @return отсортированный неизменяемый список со значением счётчика изменений
+     */
+    private SortedMetrics sort(Comparator<UserOrderMetrics> order) {
+        long modification = modifications.get();
+        List<UserOrderMetrics> sorted = new ArrayList<>(mirror.values());
+        sorted.sort(order);
+        return new SortedMetrics(modification, List.copyOf(sorted));
+    }
+
+    /**
+     * Возвращает страницу отсортированного списка.
+     *
+     * @param sorted отсортированный список
+     * @param page номер страницы
+     * @param size размер страницы
+     * @return страница метрик
+     */
+    private static PageResponse<UserOrderMetrics> page(List<UserOrderMetrics> sorted, int page, int size) {
+        int from = (int) Math.min((long) page * size, sorted.size());
+        int to = Math.min(from + size, sorted.size());
+        int totalPages = (sorted.size() + size - 1) / size;
+        return new PageResponse<>(sorted.subList(from, to), page, size, sorted.size(), totalPages);
+    }
+
+    /**
+     * Выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет.
+     *
+     * @param action действие
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Отсортированный список итогов со значением счётчика изменений, при котором он собран.
+     */
+    private static final class SortedMetrics {
+
+        /**
+         * Значение счётчика изменений перед снимком копии.
+         */
+        private final long modification;
+
+        /**
+         * Отсортированные итоги.
+         */
+        private final List<UserOrderMetrics> metrics;
+
+        private SortedMetrics(long modification, List<UserOrderMetrics> metrics) {
+            this.modification = modification;
+            this.metrics = metrics;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.musicStore.service;
 
+import com.example.musicStore.model.CursorPage;
 import com.example.musicStore.model.User;
 import com.example.musicStore.repository.CartRepository;
 import com.example.musicStore.repository.UserRepository;
 import com.example.musicStore.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -12,6 +14,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +32,12 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    /**
+     * Потоковая запись JSON-массивов.
+     */
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
     /**
      * Репозиторий для работы с корзинами пользователей.
      */
@@ -46,6 +56,12 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    /**
+     * Сервис накопленных итогов заказов по пользователям.
+     */
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
+
     /**
      * Загружает данные пользователя по логину (имя пользователя или email) для аутентификации.
      *
@@ -110,6 +126,32 @@ public class UserService implements UserDetailsService {
         return userRepository.findAll();
     }
 
+    /**
+     * Возвращает страницу пользователей с курсорной пагинацией в порядке идентификаторов.
+     *
+     * @param cursor курсор из ответа на предыдущую страницу или null для первой страницы
+     * @param size размер страницы
+     * @return страница пользователей с курсором следующей страницы
+     * @throws IllegalArgumentException если курсор или размер страницы некорректны
+     */
+    public CursorPage<User> findUsersAfter(String cursor, int size) {
+        KeysetCursor.validateSize(size);
+        long afterId = cursor == null || cursor.isBlank() ? 0L : KeysetCursor.decode(cursor, "id").getId();
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, size + 1));
+        return KeysetCursor.page(rows, size, user -> new KeysetCursor("id", user.getId(), null));
+    }
+
+    /**
+     * Записывает всех пользователей в выходной поток как JSON-массив, читая их курсором из базы данных.
+     *
+     * @param out выходной поток ответа
+     * @throws IOException если запись в выходной поток не удалась
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(OutputStream out) throws IOException {
+        jsonStreamWriter.writeArray(userRepository.streamAll(), out);
+    }
+
     /**
      * Сохраняет пользователя без изменения пароля.
      *
@@ -145,6 +187,7 @@ public class UserService implements UserDetailsService {
         // Очищаем корзину пользователя перед удалением
         cartRepository.deleteByUserId(userId);
         orderRepository.deleteByUserId(userId);
+        userOrderStatsService.removeUser(userId);
         userRepository.deleteById(userId);
     }
 
@@ -156,9 +199,8 @@ public class UserService implements UserDetailsService {
      * @throws UsernameNotFoundException если пользователь не найден
      */
     public Long getUserIdByUsername(String username) {
-        User user = userRepository.findByUsername(username)
+        return userRepository.findIdByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        return user.getId();
     }
 
     /**
@@ -0,0 +1,470 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CartItemQuantity;
+import com.example.musicStore.model.CartLine;
+import com.example.musicStore.model.CartView;
+import com.example.musicStore.model.Product;
+import com.example.musicStore.model.ProductSummary;
+import com.example.musicStore.repository.CartItemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Хранилище корзин с отложенной записью в базу данных.
+ * Корзины активных пользователей держатся в памяти, изменения количества применяются к ним сразу,
+ * а в таблицу cart_items переносятся пачками по расписанию и при остановке приложения.
+ * Несколько изменений одного товара между сбросами превращаются в одну запись итогового количества.
+ * Изменения, сделанные после последнего сброса, теряются при аварийном завершении процесса:
+ * окно потери не превышает store.cart.write-behind.flush-interval-ms.
+ * Обращения к корзине пользователя выполняются под той же блокировкой {@link CartMutationExecutor},
+ * что и оформление заказа, поэтому выгруженная при оформлении корзина не загружается заново, пока
+ * транзакция заказа не зафиксирована или не откачена.
+ * Режим рассчитан на один экземпляр приложения и включается свойством store.cart.write-behind.enabled.
+ */
+@Service
+public class WriteBehindCartStore {
+
+    /**
+     * Признак включения отложенной записи.
+     */
+    @Value("${store.cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Максимальное количество корзин с несохранёнными изменениями; при превышении сброс
+     * выполняется сразу в потоке запроса.
+     */
+    @Value("${store.cart.write-behind.max-dirty-carts:10000}")
+    private int maxDirtyCarts;
+
+    /**
+     * Время, после которого корзина без изменений выгружается из памяти.
+     */
+    @Value("${store.cart.write-behind.idle-ms:1800000}")
+    private long idleMillis;
+
+    /**
+     * Репозиторий для работы с элементами корзин.
+     */
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    /**
+     * Сервис для работы с продуктами.
+     */
+    @Autowired
+    private ProductService productService;
+
+    /**
+     * Пакетная запись изменений корзин.
+     */
+    @Autowired
+    private CartBatchWriter cartBatchWriter;
+
+    /**
+     * Исполнитель изменений корзины; его блокировки упорядочивают обращения к корзине с оформлением заказа.
+     */
+    @Autowired
+    private CartMutationExecutor cartMutationExecutor;
+
+    /**
+     * Транзакции сброса, независимые от транзакции вызывающего кода.
+     */
+    private final TransactionTemplate flushTransaction;
+
+    /**
+     * Корзины в памяти по идентификатору пользователя.
+     */
+    private final Map<Long, LiveCart> carts = new ConcurrentHashMap<>();
+
+    /**
+     * Пользователи, корзины которых содержат несохранённые изменения.
+     */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Блокировка, исключающая одновременные сбросы.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Конструктор с указанием менеджера транзакций.
+     *
+     * @param transactionManager менеджер транзакций приложения
+     */
+    public WriteBehindCartStore(PlatformTransactionManager transactionManager) {
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Проверяет, что оформление заказа и корзины в памяти упорядочиваются блокировками пользователя.
+     *
+     * @throws IllegalStateException если отложенная запись включена без блокировок по полосам
+     */
+    @PostConstruct
+    void init() {
+        if (enabled && !cartMutationExecutor.isStripedLocksEnabled()) {
+            throw new IllegalStateException(
+                    "Отложенная запись корзин требует store.cart.striped-locks.enabled=true");
+        }
+    }
+
+    /**
+     * Проверяет, включена ли отложенная запись.
+     *
+     * @return true, если корзины обслуживаются из памяти
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Увеличивает количество продукта в корзине пользователя.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @param quantity на сколько увеличить количество
+     * @param maxQuantity максимальное количество одного продукта в корзине
+     * @return новое количество продукта в корзине
+     * @throws IllegalArgumentException если продукт не найден
+     */
+    public CartItemQuantity add(Long userId, Long productId, int quantity, int maxQuantity) {
+        requireProduct(productId);
+        int result = mutate(userId, cart -> cart.set(productId,
+                (int) Math.min((long) cart.quantityOf(productId) + quantity, maxQuantity)));
+        return new CartItemQuantity(productId, result);
+    }
+
+    /**
+     * Устанавливает точное количество продукта в корзине пользователя; 0 удаляет продукт.
+     *
+     * @param userId идентификатор пользователя
+     * @param productId идентификатор продукта
+     * @param quantity новое количество
+     * @return установленное количество
+     * @throws IllegalArgumentException если продукт не найден
+     */
+    public CartItemQuantity set(Long userId, Long productId, int quantity) {
+        if (quantity > 0) {
+            requireProduct(productId);
+        }
+        int result = mutate(userId, cart -> cart.set(productId, quantity));
+        return new CartItemQuantity(productId, result);
+    }
+
+    /**
+     * Возвращает корзину пользователя, собранную из памяти; продукты берутся из кэша каталога.
+     *
+     * @param userId идентификатор пользователя
+     * @return корзина с суммами
+     */
+    public CartView view(Long userId) {
+        Map<Long, Integer> snapshot = cartMutationExecutor.withUserLock(userId, () -> {
+            while (true) {
+                LiveCart live = liveCart(userId);
+                synchronized (live) {
+                    if (!live.evicted) {
+                        live.touch();
+                        return new LinkedHashMap<>(live.quantities);
+                    }
+                }
+            }
+        });
+        List<CartLine> lines = new ArrayList<>(snapshot.size());
+        for (Map.Entry<Long, Integer> entry : snapshot.entrySet()) {
+            Product product = productService.getProductById(entry.getKey());
+            if (product != null) {
+                ProductSummary summary = new ProductSummary(product.getId(), product.getName(),
+                        product.getImage(), product.getPrice());
+                lines.add(new CartLine(summary, entry.getValue()));
+            }
+        }
+        return new CartView(lines);
+    }
+
+    /**
+     * Сохраняет несохранённые изменения корзины пользователя и выгружает её из памяти.
+     * Вызывается перед операциями, которые работают с корзиной в базе данных напрямую.
+     * Если запись не удалась, изменения остаются в очереди, а исключение передаётся вызывающему коду.
+     *
+     * @param userId идентификатор пользователя
+     */
+    public void flushUser(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            LiveCart live = carts.get(userId);
+            if (live == null) {
+                return;
+            }
+            dirty.remove(userId);
+            Map<Long, Integer> pending;
+            synchronized (live) {
+                pending = live.pending;
+                live.pending = new HashMap<>();
+            }
+            if (!pending.isEmpty()) {
+                try {
+                    write(Map.of(userId, pending));
+                } catch (RuntimeException e) {
+                    requeue(Map.of(userId, pending));
+                    throw e;
+                }
+            }
+            synchronized (live) {
+                if (live.pending.isEmpty()) {
+                    live.evicted = true;
+                    carts.remove(userId, live);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Выгружает из памяти корзины пользователей, удалённые из базы данных в обход хранилища.
+     * Выполняется под блокировкой пользователя, поэтому корзина, загружаемая одновременно с удалением,
+     * тоже выгружается.
+     * Корзина с несохранёнными изменениями остаётся в памяти только с изменёнными товарами —
+     * в таком виде её воссоздаст очередной сброс.
+     *
+     * @param userIds идентификаторы пользователей
+     */
+    public void evict(Collection<Long> userIds) {
+        if (!enabled) {
+            return;
+        }
+        for (Long userId : userIds) {
+            cartMutationExecutor.withUserLock(userId, () -> {
+                LiveCart live = carts.get(userId);
+                if (live == null) {
+                    return null;
+                }
+                synchronized (live) {
+                    if (live.pending.isEmpty()) {
+                        live.evicted = true;
+                        carts.remove(userId, live);
+                    } else {
+                        live.quantities.keySet().retainAll(live.pending.keySet());
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Сбрасывает изменения всех корзин в базу данных одной транзакцией и выгружает давно не используемые корзины.
+     * Если запись не удалась, изменения возвращаются в очередь до следующего сброса.
+     */
+    @Scheduled(fixedDelayString = "${store.cart.write-behind.flush-interval-ms:2000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Map<Long, Integer>> batch = new HashMap<>();
+            for (Long userId : new ArrayList<>(dirty)) {
+                dirty.remove(userId);
+                LiveCart live = carts.get(userId);
+                if (live == null) {
+                    continue;
+                }
+                synchronized (live) {
+                    if (!live.pending.isEmpty()) {
+                        batch.put(userId, live.pending);
+                        live.pending = new HashMap<>();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    requeue(batch);
+                }
+            }
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Сбрасывает изменения при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Применяет изменение к корзине пользователя под блокировкой пользователя, загружая корзину
+     * из базы данных при первом обращении. При переполнении множества изменённых корзин сброс выполняется сразу.
+     *
+     * @param userId идентификатор пользователя
+     * @param change изменение, возвращающее новое количество продукта
+     * @return новое количество продукта
+     */
+    private int mutate(Long userId, ToIntFunction<LiveCart> change) {
+        int result = cartMutationExecutor.withUserLock(userId, () -> {
+            while (true) {
+                LiveCart live = liveCart(userId);
+                synchronized (live) {
+                    if (!live.evicted) {
+                        live.touch();
+                        int quantity = change.applyAsInt(live);
+                        dirty.add(userId);
+                        return quantity;
+                    }
+                }
+            }
+        });
+        if (dirty.size() > maxDirtyCarts) {
+            flush();
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает корзину пользователя в памяти, загружая её из базы данных при первом обращении.
+     * Вызывается под блокировкой пользователя, поэтому корзину одного пользователя загружает один поток,
+     * а запрос к базе данных выполняется вне блокировок словаря корзин.
+     *
+     * @param userId идентификатор пользователя
+     * @return корзина в памяти
+     */
+    private LiveCart liveCart(Long userId) {
+        LiveCart live = carts.get(userId);
+        if (live != null) {
+            return live;
+        }
+        LiveCart loaded = load(userId);
+        live = carts.putIfAbsent(userId, loaded);
+        return live == null ? loaded : live;
+    }
+
+    /**
+     * Загружает корзину пользователя из базы данных.
+     *
+     * @param userId идентификатор пользователя
+     * @return корзина в памяти
+     */
+    private LiveCart load(Long userId) {
+        LiveCart live = new LiveCart();
+        for (CartItemQuantity item : cartItemRepository.findQuantitiesByUserId(userId)) {
+            live.quantities.put(item.getProductId(), item.getQuantity());
+        }
+        return live;
+    }
+
+    /**
+     * Записывает итоговые количества товаров в отдельной транзакции.
+     *
+     * @param batch изменения по пользователям: идентификатор продукта и итоговое количество (0 — удалить)
+     */
+    private void write(Map<Long, Map<Long, Integer>> batch) {
+        flushTransaction.executeWithoutResult(status -> cartBatchWriter.setQuantities(batch));
+    }
+
+    /**
+     * Возвращает в очередь изменения, которые не удалось записать; более поздние изменения тех же товаров сохраняются.
+     *
+     * @param batch изменения по пользователям
+     */
+    private void requeue(Map<Long, Map<Long, Integer>> batch) {
+        for (Map.Entry<Long, Map<Long, Integer>> cart : batch.entrySet()) {
+            LiveCart live = carts.get(cart.getKey());
+            if (live == null) {
+                continue;
+            }
+            synchronized (live) {
+                cart.getValue().forEach(live.pending::putIfAbsent);
+            }
+            dirty.add(cart.getKey());
+        }
+    }
+
+    /**
+     * Выгружает из памяти корзины без несохранённых изменений, к которым давно не обращались.
+     */
+    private void evictIdle() {
+        long threshold = System.currentTimeMillis() - idleMillis;
+        carts.forEach((userId, live) -> {
+            synchronized (live) {
+                if (live.lastAccess < threshold && live.pending.isEmpty() && !dirty.contains(userId)) {
+                    live.evicted = true;
+                    carts.remove(userId, live);
+                }
+            }
+        });
+    }
+
+    /**
+     * Проверяет существование продукта по кэшу каталога.
+     *
+     * @param productId идентификатор продукта
+     * @throws IllegalArgumentException если продукт не найден
+     */
+    private void requireProduct(Long productId) {
+        if (productService.getProductById(productId) == null) {
+            throw new IllegalArgumentException("Продукт не найден: " + productId);
+        }
+    }
+
+    /**
+     * Корзина пользователя в памяти. Все поля защищены монитором самого объекта.
+     */
+    private static final class LiveCart {
+
+        private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+
+        private Map<Long, Integer> pending = new HashMap<>();
+
+        private long lastAccess = System.currentTimeMillis();
+
+        private boolean evicted;
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        private int quantityOf(Long productId) {
+            return quantities.getOrDefault(productId, 0);
+        }
+
+        private int set(Long productId, int quantity) {
+            if (quantity > 0) {
+                quantities.put(productId, quantity);
+            } else {
+                quantities.remove(productId);
+            }
+            pending.put(productId, quantity);
+            return quantity;
+        }
+    }
+}
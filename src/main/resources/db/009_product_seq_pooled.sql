@@ -0,0 +1,3 @@
+-- Пул идентификаторов товаров: Hibernate резервирует 50 значений за одно обращение к последовательности
+-- (allocationSize = 50 в Product). Выполнить один раз на существующей базе.
+ALTER SEQUENCE public.product_seq INCREMENT BY 50;
@@ -0,0 +1,23 @@
+-- Один элемент корзины на пару (корзина, продукт): повторы объединяются с суммированием количества,
+-- затем добавляется уникальное ограничение, на которое опирается INSERT ... ON CONFLICT при добавлении в корзину.
+-- Выполнить один раз на существующей базе.
+BEGIN;
+
+UPDATE public.cart_items ci
+SET quantity = d.total
+FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS total
+      FROM public.cart_items
+      GROUP BY cart_id, product_id
+      HAVING COUNT(*) > 1) d
+WHERE ci.id = d.keep_id;
+
+DELETE FROM public.cart_items ci
+USING public.cart_items keep
+WHERE ci.cart_id = keep.cart_id
+  AND ci.product_id = keep.product_id
+  AND ci.id > keep.id;
+
+ALTER TABLE public.cart_items
+    ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id);
+
+COMMIT;
@@ -0,0 +1,26 @@
+-- Позиции заказов вместо строки order_products на каждую единицу товара: повторы одного продукта
+-- в заказе сворачиваются в одну позицию с количеством. Цена за единицу для старых заказов берётся
+-- из текущей цены продукта, так как история цен не хранилась; итоговая сумма заказа не меняется.
+-- Выполнить один раз на существующей базе.
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS public.order_items (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id bigint NOT NULL REFERENCES public.orders (id),
+    product_id bigint NOT NULL REFERENCES public.products (id),
+    quantity integer NOT NULL,
+    unit_price double precision NOT NULL,
+    CONSTRAINT uk_order_items_order_product UNIQUE (order_id, product_id)
+);
+
+INSERT INTO public.order_items (order_id, product_id, quantity, unit_price)
+SELECT op.order_id, op.product_id, COUNT(*), p.price
+FROM public.order_products op
+JOIN public.products p ON p.id = op.product_id
+GROUP BY op.order_id, op.product_id, p.price
+ORDER BY op.order_id, op.product_id
+ON CONFLICT (order_id, product_id) DO NOTHING;
+
+DROP TABLE public.order_products;
+
+COMMIT;
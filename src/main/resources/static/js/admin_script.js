@@ -36,7 +36,7 @@ async function loadProducts() {
                 <td>${product.id}</td>
                 <td>${product.name}</td>
                 <td>${product.price}</td>
-                <td><img src="${product.image || 'images/placeholder.jpg'}" alt="${product.name}" style="width: 50px;"></td>
+                <td><img src="${(product.imageVariants && product.imageVariants[160]) || product.image || 'images/placeholder.jpg'}" alt="${product.name}" style="width: 50px;"></td>
                 <td>
                     <button onclick="editProduct(${product.id})">Редактировать</button>
                     <button onclick="deleteProduct(${product.id})">Удалить</button>
@@ -87,26 +87,45 @@ async function loadUsers() {
 }
 
 // Загрузка метрик
+// Графики метрик; перед повторной отрисовкой старый график удаляется
+let ordersCountChart = null;
+let totalPriceChart = null;
+
+// Параметры запроса метрик: период из полей формы, если они заполнены, и топ-20 пользователей
+function metricsQuery() {
+    const params = new URLSearchParams({ size: '20' });
+    const from = document.getElementById('metrics-from');
+    const to = document.getElementById('metrics-to');
+    if (from && from.value) {
+        params.set('from', from.value);
+    }
+    if (to && to.value) {
+        params.set('to', to.value);
+    }
+    return params.toString();
+}
+
 async function loadMetrics() {
     try {
+        const query = metricsQuery();
         // Загрузка количества заказов
-        const ordersResponse = await fetch('http://localhost:8080/api/admin/orders/metrics/orders-by-user', {
+        const ordersResponse = await fetch(`http://localhost:8080/api/admin/orders/metrics/orders-by-user?${query}`, {
             credentials: 'include',
         });
         if (ordersResponse.ok) {
             const ordersData = await ordersResponse.json();
-            renderOrdersCountChart(ordersData);
+            renderOrdersCountChart(ordersData.content);
         } else {
             console.error('Failed to load orders metrics, status:', ordersResponse.status);
         }
 
         // Загрузка общей суммы заказов
-        const priceResponse = await fetch('http://localhost:8080/api/admin/orders/metrics/total-price-by-user', {
+        const priceResponse = await fetch(`http://localhost:8080/api/admin/orders/metrics/total-price-by-user?${query}`, {
             credentials: 'include',
         });
         if (priceResponse.ok) {
             const priceData = await priceResponse.json();
-            renderTotalPriceChart(priceData);
+            renderTotalPriceChart(priceData.content);
         } else {
             console.error('Failed to load total price metrics, status:', priceResponse.status);
         }
@@ -118,7 +137,10 @@ async function loadMetrics() {
 // Отрисовка графика количества заказов
 function renderOrdersCountChart(data) {
     const ctx = document.getElementById('ordersCountChart').getContext('2d');
-    new Chart(ctx, {
+    if (ordersCountChart) {
+        ordersCountChart.destroy();
+    }
+    ordersCountChart = new Chart(ctx, {
         type: 'bar',
         data: {
             labels: data.map(item => item.username),
@@ -153,7 +175,10 @@ function renderOrdersCountChart(data) {
 // Отрисовка графика общей суммы заказов
 function renderTotalPriceChart(data) {
     const ctx = document.getElementById('totalPriceChart').getContext('2d');
-    new Chart(ctx, {
+    if (totalPriceChart) {
+        totalPriceChart.destroy();
+    }
+    totalPriceChart = new Chart(ctx, {
         type: 'bar',
         data: {
             labels: data.map(item => item.username),
@@ -185,6 +210,105 @@ function renderTotalPriceChart(data) {
     });
 }
 
+// Продажи по времени
+// График продаж; перед повторной отрисовкой старый график удаляется
+let salesChart = null;
+
+// Количество интервалов графика для каждой длины интервала
+const SALES_POINTS = { minute: 60, hour: 24, day: 30 };
+
+async function loadSales() {
+    const select = document.getElementById('sales-resolution');
+    const resolution = select ? select.value : 'minute';
+    try {
+        const salesResponse = await fetch(`http://localhost:8080/api/admin/analytics/sales?resolution=${resolution}&points=${SALES_POINTS[resolution]}`, {
+            credentials: 'include',
+        });
+        if (salesResponse.ok) {
+            renderSalesChart(await salesResponse.json(), resolution);
+        } else {
+            console.error('Failed to load sales, status:', salesResponse.status);
+        }
+
+        const windowsResponse = await fetch('http://localhost:8080/api/admin/analytics/windows?top=5', {
+            credentials: 'include',
+        });
+        if (windowsResponse.ok) {
+            renderSalesWindows(await windowsResponse.json());
+        } else {
+            console.error('Failed to load sales windows, status:', windowsResponse.status);
+        }
+    } catch (error) {
+        console.error('Error loading sales:', error);
+    }
+}
+
+// Отрисовка графика выручки и количества заказов
+function renderSalesChart(data, resolution) {
+    const ctx = document.getElementById('salesChart').getContext('2d');
+    if (salesChart) {
+        salesChart.destroy();
+    }
+    const label = item => resolution === 'day' ? item.start.substring(0, 10) : item.start.substring(11, 16);
+    salesChart = new Chart(ctx, {
+        type: 'line',
+        data: {
+            labels: data.map(label),
+            datasets: [{
+                label: 'Выручка (руб.)',
+                data: data.map(item => item.revenue),
+                borderColor: 'rgba(153, 102, 255, 1)',
+                yAxisID: 'y'
+            }, {
+                label: 'Количество заказов',
+                data: data.map(item => item.orderCount),
+                borderColor: 'rgba(75, 192, 192, 1)',
+                yAxisID: 'orders'
+            }]
+        },
+        options: {
+            scales: {
+                y: {
+                    beginAtZero: true,
+                    title: {
+                        display: true,
+                        text: 'Сумма (руб.)'
+                    }
+                },
+                orders: {
+                    beginAtZero: true,
+                    position: 'right',
+                    title: {
+                        display: true,
+                        text: 'Заказы'
+                    }
+                }
+            }
+        }
+    });
+}
+
+// Отрисовка итогов за скользящие окна с самыми продаваемыми товарами
+function renderSalesWindows(windows) {
+    const container = document.getElementById('sales-windows');
+    container.innerHTML = '';
+    windows.forEach(salesWindow => {
+        const block = document.createElement('div');
+        block.style.marginBottom = '10px';
+        const title = document.createElement('strong');
+        title.textContent = `${salesWindow.window}: ${salesWindow.orderCount} заказов на ${salesWindow.revenue.toFixed(2)} руб.`;
+        block.appendChild(title);
+        const list = document.createElement('ol');
+        salesWindow.topProducts.forEach(product => {
+            const li = document.createElement('li');
+            li.textContent = `${product.name || 'Товар #' + product.productId} — ${product.quantity} шт. на ${product.revenue.toFixed(2)} руб.`;
+            list.appendChild(li);
+        });
+        block.appendChild(list);
+        container.appendChild(block);
+    });
+}
+
 // Показать форму добавления/редактирования товара
 function showAddProductForm(isEditing = false) {
     const formContainer = document.getElementById('add-product-form');
@@ -1,51 +1,118 @@
-let allProducts = [];
+const PRODUCTS_PAGE_SIZE = 24;
+let currentProductsPage = 0;
+let loadedProducts = [];
 
 async function fetchProducts() {
+    await filterAndSortProducts();
+}
+
+function buildProductsQuery(page) {
+    const params = new URLSearchParams();
+    const searchInput = document.getElementById('search-input');
+    const categoryFilter = document.getElementById('category-filter');
+    const brandFilter = document.getElementById('brand-filter');
+    const sortFilter = document.getElementById('sort-filter');
+
+    if (searchInput && searchInput.value.trim()) params.set('q', searchInput.value.trim());
+    if (categoryFilter && categoryFilter.value) params.set('category', categoryFilter.value);
+    if (brandFilter && brandFilter.value) params.set('brand', brandFilter.value);
+    if (sortFilter && sortFilter.value) params.set('sort', sortFilter.value);
+    const priceFilter = document.getElementById('price-filter');
+    if (priceFilter && priceFilter.value) {
+        // Диапазон гистограммы [from, to): верхняя граница фильтра включительная, поэтому берём на копейку меньше
+        const [from, to] = priceFilter.value.split(':');
+        params.set('minPrice', from);
+        if (to) params.set('maxPrice', (Number(to) - 0.01).toFixed(2));
+    }
+    params.set('page', page);
+    params.set('size', PRODUCTS_PAGE_SIZE);
+    return params.toString();
+}
+
+async function loadProductsPage(page) {
     try {
-        const response = await fetch('http://localhost:8080/api/public/products');
-        allProducts = await response.json();
-        displayProducts(allProducts);
+        const response = await fetch(`http://localhost:8080/api/public/products/query?${buildProductsQuery(page)}`);
+        if (!response.ok) {
+            console.error('Error fetching products, status:', response.status);
+            return;
+        }
+        const result = await response.json();
+        currentProductsPage = result.page;
+        loadedProducts = page === 0 ? result.content : loadedProducts.concat(result.content);
+        displayProducts(loadedProducts);
+
+        const loadMoreButton = document.getElementById('load-more');
+        if (loadMoreButton) {
+            loadMoreButton.style.display = result.page + 1 < result.totalPages ? 'block' : 'none';
+        }
     } catch (error) {
         console.error('Error fetching products:', error);
     }
 }
 
-async function fetchCategories() {
+async function fetchFacets() {
     try {
-        const response = await fetch('http://localhost:8080/api/public/products/categories');
-        const categories = await response.json();
-        const categoryFilter = document.getElementById('category-filter');
-        if (categoryFilter) {
-            categories.forEach(category => {
-                const option = document.createElement('option');
-                option.value = category;
-                option.textContent = category;
-                categoryFilter.appendChild(option);
-            });
-        }
+        const response = await fetch('http://localhost:8080/api/public/products/facets');
+        const facets = await response.json();
+        fillFacetSelect('category-filter', facets.categories);
+        fillFacetSelect('brand-filter', facets.brands);
     } catch (error) {
-        console.error('Error fetching categories:', error);
+        console.error('Error fetching facets:', error);
+    }
+}
+
+function fillFacetSelect(selectId, values) {
+    const select = document.getElementById(selectId);
+    if (!select) {
+        return;
     }
+    values.forEach(facet => {
+        const option = document.createElement('option');
+        option.value = facet.value;
+        option.textContent = `${facet.value} (${facet.count})`;
+        select.appendChild(option);
+    });
 }
 
-async function fetchBrands() {
+// Ценовые диапазоны с количеством товаров для выбранной категории
+async function fetchPriceHistogram() {
+    const priceFilter = document.getElementById('price-filter');
+    if (!priceFilter) {
+        return;
+    }
+    const categoryFilter = document.getElementById('category-filter');
+    const params = new URLSearchParams();
+    if (categoryFilter && categoryFilter.value) params.set('category', categoryFilter.value);
     try {
-        const response = await fetch('http://localhost:8080/api/public/products/brands');
-        const brands = await response.json();
-        const brandFilter = document.getElementById('brand-filter');
-        if (brandFilter) {
-            brands.forEach(brand => {
-                const option = document.createElement('option');
-                option.value = brand;
-                option.textContent = brand;
-                brandFilter.appendChild(option);
-            });
-        }
+        const response = await fetch(`http://localhost:8080/api/public/products/price-histogram?${params.toString()}`);
+        const histogram = await response.json();
+        const selected = priceFilter.value;
+        priceFilter.length = 1;
+        histogram.buckets.filter(bucket => bucket.count > 0).forEach(bucket => {
+            const option = document.createElement('option');
+            option.value = bucket.to === null ? `${bucket.from}:` : `${bucket.from}:${bucket.to}`;
+            option.textContent = bucket.to === null
+                ? `от ${bucket.from} руб. (${bucket.count})`
+                : `${bucket.from} – ${bucket.to} руб. (${bucket.count})`;
+            priceFilter.appendChild(option);
+        });
+        priceFilter.value = Array.from(priceFilter.options).some(option => option.value === selected) ? selected : '';
     } catch (error) {
-        console.error('Error fetching brands:', error);
+        console.error('Error fetching price histogram:', error);
     }
 }
 
+// Атрибуты изображения карточки: уменьшенные копии через srcset, если сервер их отдаёт
+function productImageAttributes(product) {
+    const variants = product.imageVariants || {};
+    const widths = Object.keys(variants);
+    if (widths.length === 0) {
+        return `src="${product.image || 'images/placeholder.jpg'}"`;
+    }
+    const srcset = widths.map(width => `${variants[width]} ${width}w`).join(', ');
+    return `src="${variants[320] || variants[widths[0]]}" srcset="${srcset}" sizes="240px"`;
+}
+
 function displayProducts(products) {
     const productGrid = document.getElementById('product-grid');
     if (!productGrid) {
@@ -59,7 +126,7 @@ function displayProducts(products) {
         productDiv.classList.add('product');
         productDiv.innerHTML = `
             <div class="product-image">
-                <img src="${product.image || 'images/placeholder.jpg'}" alt="${product.name}">
+                <img ${productImageAttributes(product)} loading="lazy" alt="${product.name}">
             </div>
             <div class="product-info">
                 <h3>${product.name}</h3>
@@ -71,50 +138,12 @@ function displayProducts(products) {
     });
 }
 
-function filterAndSortProducts() {
-    const searchInput = document.getElementById('search-input').value.toLowerCase();
-    const categoryFilter = document.getElementById('category-filter').value;
-    const brandFilter = document.getElementById('brand-filter').value;
-    const sortFilter = document.getElementById('sort-filter').value;
-
-    let filteredProducts = [...allProducts];
-
-    if (searchInput) {
-        filteredProducts = filteredProducts.filter(product =>
-            product.name.toLowerCase().includes(searchInput)
-        );
-    }
-
-    if (categoryFilter) {
-        filteredProducts = filteredProducts.filter(product =>
-            product.category === categoryFilter
-        );
-    }
-
-    if (brandFilter) {
-        filteredProducts = filteredProducts.filter(product =>
-            product.brand === brandFilter
-        );
-    }
-
-    switch (sortFilter) {
-        case 'price-asc':
-            filteredProducts.sort((a, b) => a.price - b.price);
-            break;
-        case 'price-desc':
-            filteredProducts.sort((a, b) => b.price - a.price);
-            break;
-        case 'name-asc':
-            filteredProducts.sort((a, b) => a.name.localeCompare(b.name));
-            break;
-        case 'name-desc':
-            filteredProducts.sort((a, b) => b.name.localeCompare(a.name));
-            break;
-        default:
-            break;
-    }
+async function filterAndSortProducts() {
+    await loadProductsPage(0);
+}
 
-    displayProducts(filteredProducts);
+async function loadMoreProducts() {
+    await loadProductsPage(currentProductsPage + 1);
 }
 
 async function addToCart(productId) {
@@ -138,11 +167,8 @@ async function addToCart(productId) {
             }
             alert('Товар добавлен в корзину!');
         } else if (response.status === 401) {
-            const errorData = await response.json();
-            const errorMessage = errorData.message || 'Пожалуйста, авторизуйтесь';
-            console.log('Unauthorized, message:', errorMessage);
-            alert(errorMessage);
-            window.location.href = '/login.html';
+            // Неавторизованный посетитель: товар попадает в гостевую корзину, которая перенесётся при входе
+            await addToGuestCart(productId);
         } else {
             const errorText = await response.text();
             console.log('Failed to add product to cart, status:', response.status, 'message:', errorText);
@@ -154,6 +180,33 @@ async function addToCart(productId) {
     }
 }
 
+async function addToGuestCart(productId) {
+    const response = await fetch(`http://localhost:8080/api/public/guest-cart/add/${productId}`, {
+        method: 'POST',
+        credentials: 'include',
+    });
+    if (response.ok) {
+        await updateCartCount();
+        alert('Товар добавлен в корзину! Войдите, чтобы оформить заказ.');
+    } else {
+        const errorText = await response.text();
+        console.log('Failed to add product to guest cart, status:', response.status, 'message:', errorText);
+        alert('Ошибка при добавлении товара в корзину: ' + errorText);
+    }
+}
+
+async function fetchGuestCart() {
+    const response = await fetch('http://localhost:8080/api/public/guest-cart', {
+        credentials: 'include',
+        cache: 'no-store',
+    });
+    if (!response.ok) {
+        return [];
+    }
+    const cart = await response.json();
+    return cart.items || [];
+}
+
 async function fetchCart() {
     try {
         const response = await fetch(`http://localhost:8080/api/cart`, {
@@ -171,8 +224,9 @@ async function fetchCart() {
             if (currentPath.includes('cart.html')) {
                 alert('Пожалуйста, авторизуйтесь, чтобы открыть корзину.');
                 window.location.href = '/login.html';
+                return [];
             }
-            return [];
+            return await fetchGuestCart();
         } else {
             console.error('Failed to fetch cart, status:', response.status);
             console.error('Response text:', await response.text());
@@ -207,16 +261,32 @@ async function checkout() {
             method: 'POST',
             headers: {
                 'Content-Type': 'application/json',
+                'Idempotency-Key': crypto.randomUUID(),
             },
             credentials: 'include',
         });
-        if (response.ok) {
+        if (response.status === 202) {
+            const status = await waitForCheckout(response.headers.get('Location'));
+            if (status && status.status === 'COMPLETED') {
+                alert('Заказ оформлен!');
+            } else if (status && status.status === 'FAILED') {
+                alert(`Заказ не оформлен: ${status.message}`);
+            } else {
+                alert('Заказ ещё оформляется. Проверьте историю заказов в личном кабинете.');
+            }
+            await updateCartCount();
+            if (typeof loadCart === 'function') {
+                await loadCart();
+            }
+        } else if (response.ok) {
             console.log('Checkout successful, updating UI...');
             alert('Заказ оформлен!');
             await updateCartCount();
             if (typeof loadCart === 'function') {
                 await loadCart();
             }
+        } else if (response.status === 503) {
+            alert('Сейчас оформляется слишком много заказов. Пожалуйста, повторите попытку через несколько секунд.');
         } else if (response.status === 401) {
             alert('Пожалуйста, авторизуйтесь, чтобы оформить заказ.');
             window.location.href = '/login.html';
@@ -231,6 +301,24 @@ async function checkout() {
     }
 }
 
+// Опрашивает состояние асинхронного оформления заказа, пока заявка не завершится (не дольше минуты)
+async function waitForCheckout(location) {
+    for (let attempt = 0; attempt < 60; attempt++) {
+        const response = await fetch(`http://localhost:8080${location}`, {
+            credentials: 'include',
+        });
+        if (!response.ok) {
+            return null;
+        }
+        const status = await response.json();
+        if (status.status === 'COMPLETED' || status.status === 'FAILED') {
+            return status;
+        }
+        await new Promise(resolve => setTimeout(resolve, 1000));
+    }
+    return null;
+}
+
 async function checkAuthStatus() {
     const userStatus = document.getElementById('user-status');
     const loginLink = document.getElementById('login-link');
@@ -303,8 +391,8 @@ document.addEventListener('DOMContentLoaded', async () => {
     await checkAuthStatus();
     if (document.getElementById('product-grid')) {
         await fetchProducts();
-        await fetchCategories();
-        await fetchBrands();
+        await fetchFacets();
+        await fetchPriceHistogram();
     }
     // Вызываем updateCartCount только на страницах, где это необходимо
     const currentPath = window.location.pathname;
@@ -321,7 +409,14 @@ document.addEventListener('DOMContentLoaded', async () => {
         searchInput.addEventListener('input', filterAndSortProducts);
     }
     if (categoryFilter) {
-        categoryFilter.addEventListener('change', filterAndSortProducts);
+        categoryFilter.addEventListener('change', async () => {
+            await fetchPriceHistogram();
+            await filterAndSortProducts();
+        });
+    }
+    const priceFilter = document.getElementById('price-filter');
+    if (priceFilter) {
+        priceFilter.addEventListener('change', filterAndSortProducts);
     }
     if (brandFilter) {
         brandFilter.addEventListener('change', filterAndSortProducts);
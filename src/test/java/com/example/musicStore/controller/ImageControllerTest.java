@@ -0,0 +1,44 @@
+package com.example.musicStore.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Проверки разбора заголовка Range при отдаче копий изображений.
+ */
+class ImageControllerTest {
+
+	@Test
+	void boundedAndOpenRangesAreClampedToFile() {
+		assertArrayEquals(new long[]{0, 100}, ImageController.parseRange("bytes=0-99", 1000));
+		assertArrayEquals(new long[]{500, 1000}, ImageController.parseRange("bytes=500-", 1000));
+		assertArrayEquals(new long[]{900, 1000}, ImageController.parseRange("bytes=900-5000", 1000));
+		assertArrayEquals(new long[]{999, 1000}, ImageController.parseRange("bytes= 999 - 999 ", 1000));
+	}
+
+	@Test
+	void suffixRangeTakesLastBytes() {
+		assertArrayEquals(new long[]{800, 1000}, ImageController.parseRange("bytes=-200", 1000));
+		assertArrayEquals(new long[]{0, 1000}, ImageController.parseRange("bytes=-5000", 1000));
+	}
+
+	@Test
+	void unsatisfiableRangesReturnNull() {
+		assertNull(ImageController.parseRange("bytes=1000-", 1000));
+		assertNull(ImageController.parseRange("bytes=5-2", 1000));
+		assertNull(ImageController.parseRange("bytes=-0", 1000));
+		assertNull(ImageController.parseRange("bytes=-10", 0));
+		assertNull(ImageController.parseRange("bytes=0-", 0));
+	}
+
+	@Test
+	void unsupportedHeadersFallBackToWholeFile() {
+		assertArrayEquals(new long[0], ImageController.parseRange("bytes=0-1,5-6", 1000));
+		assertArrayEquals(new long[0], ImageController.parseRange("items=0-99", 1000));
+		assertArrayEquals(new long[0], ImageController.parseRange("bytes=100", 1000));
+		assertArrayEquals(new long[0], ImageController.parseRange("bytes=a-b", 1000));
+		assertArrayEquals(new long[0], ImageController.parseRange("bytes=-", 1000));
+	}
+}
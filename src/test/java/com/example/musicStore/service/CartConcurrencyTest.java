@@ -0,0 +1,187 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CartItemQuantity;
+import com.example.musicStore.model.CartView;
+import com.example.musicStore.model.Product;
+import com.example.musicStore.repository.CartItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Нагрузочные проверки одновременных изменений корзины без базы данных.
+ */
+class CartConcurrencyTest {
+
+	private static final int THREADS = 100;
+
+	private static final Long USER_ID = 7L;
+
+	@Test
+	void stripedLocksKeepAllParallelAdds() throws Exception {
+		CartMutationExecutor executor = executor(true, 5);
+		VersionedCounter counter = new VersionedCounter();
+
+		runInParallel(() -> executor.run(USER_ID, counter::increment));
+
+		assertEquals(THREADS, counter.value);
+		assertEquals(0, counter.conflicts.get());
+	}
+
+	@Test
+	void retriesKeepAllParallelAddsWithoutLocks() throws Exception {
+		CartMutationExecutor executor = executor(false, 1000);
+		VersionedCounter counter = new VersionedCounter();
+
+		runInParallel(() -> executor.run(USER_ID, counter::increment));
+
+		assertEquals(THREADS, counter.value);
+		assertTrue(counter.conflicts.get() > 0, "ожидались конфликты версий");
+	}
+
+	@Test
+	void writeBehindStoreKeepsAllParallelAdds() throws Exception {
+		WriteBehindCartStore store = writeBehindStore(mock(CartItemRepository.class), executor(true, 5));
+
+		runInParallel(() -> store.add(USER_ID, 1L, 1, CartService.MAX_ITEM_QUANTITY));
+
+		CartView view = store.view(USER_ID);
+		assertEquals(1, view.getItems().size());
+		assertEquals(THREADS, view.getTotalQuantity());
+		assertEquals(THREADS * 100.0, view.getTotal());
+	}
+
+	@Test
+	void writeBehindStoreDoesNotReloadCartUntilCheckoutCompletes() throws Exception {
+		AtomicReference<List<CartItemQuantity>> rows = new AtomicReference<>(List.of(new CartItemQuantity(1L, 2)));
+		CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+		when(cartItemRepository.findQuantitiesByUserId(USER_ID)).thenAnswer(invocation -> rows.get());
+		CartMutationExecutor executor = executor(true, 5);
+		WriteBehindCartStore store = writeBehindStore(cartItemRepository, executor);
+		store.view(USER_ID);
+
+		CountDownLatch flushed = new CountDownLatch(1);
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			// Оформление: корзина сбрасывается и выгружается, а очищается в той же транзакции позже
+			Future<?> checkout = pool.submit(() -> executor.run(USER_ID, () -> {
+				store.flushUser(USER_ID);
+				flushed.countDown();
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				rows.set(List.of());
+			}));
+			assertTrue(flushed.await(10, TimeUnit.SECONDS));
+
+			CartItemQuantity added = store.add(USER_ID, 1L, 1, CartService.MAX_ITEM_QUANTITY);
+
+			checkout.get(10, TimeUnit.SECONDS);
+			assertEquals(1, added.getQuantity());
+			assertEquals(1, store.view(USER_ID).getTotalQuantity());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private static WriteBehindCartStore writeBehindStore(CartItemRepository cartItemRepository,
+														 CartMutationExecutor executor) {
+		Product product = new Product();
+		product.setId(1L);
+		product.setName("Гитара");
+		product.setPrice(100);
+		ProductService productService = mock(ProductService.class);
+		when(productService.getProductById(anyLong())).thenReturn(product);
+
+		WriteBehindCartStore store = new WriteBehindCartStore(mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(store, "enabled", true);
+		ReflectionTestUtils.setField(store, "maxDirtyCarts", 10000);
+		ReflectionTestUtils.setField(store, "productService", productService);
+		ReflectionTestUtils.setField(store, "cartItemRepository", cartItemRepository);
+		ReflectionTestUtils.setField(store, "cartBatchWriter", mock(CartBatchWriter.class));
+		ReflectionTestUtils.setField(store, "cartMutationExecutor", executor);
+		store.init();
+		return store;
+	}
+
+	private static CartMutationExecutor executor(boolean stripedLocks, int maxAttempts) {
+		CartMutationExecutor executor = new CartMutationExecutor(mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(executor, "maxAttempts", maxAttempts);
+		ReflectionTestUtils.setField(executor, "backoffMillis", 1L);
+		ReflectionTestUtils.setField(executor, "stripedLocksEnabled", stripedLocks);
+		ReflectionTestUtils.setField(executor, "stripes", 64);
+		executor.init();
+		return executor;
+	}
+
+	private static void runInParallel(Runnable task) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < THREADS; i++) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					task.run();
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Счётчик с проверкой версии при записи, как строка таблицы под оптимистической блокировкой:
+	 * чтение и запись разделены, и запись по устаревшей версии отклоняется.
+	 */
+	private static final class VersionedCounter {
+
+		private long version;
+
+		private int value;
+
+		private final AtomicInteger conflicts = new AtomicInteger();
+
+		void increment() {
+			long readVersion;
+			int readValue;
+			synchronized (this) {
+				readVersion = version;
+				readValue = value;
+			}
+			Thread.yield();
+			synchronized (this) {
+				if (version != readVersion) {
+					conflicts.incrementAndGet();
+					throw new ObjectOptimisticLockingFailureException(VersionedCounter.class, USER_ID);
+				}
+				value = readValue + 1;
+				version++;
+			}
+		}
+	}
+}
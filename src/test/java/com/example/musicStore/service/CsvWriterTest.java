@@ -0,0 +1,42 @@
+package com.example.musicStore.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Проверки записи CSV.
+ */
+class CsvWriterTest {
+
+	@Test
+	void quotesFieldsWithSeparatorsAndQuotes() throws IOException {
+		StringWriter out = new StringWriter();
+		new CsvWriter(out).write(1, "a,b", "say \"hi\"", null, "line\nbreak");
+		assertEquals("1,\"a,b\",\"say \"\"hi\"\"\",,\"line\nbreak\"\r\n", out.toString());
+	}
+
+	@Test
+	void textPrefixesFormulaStarts() {
+		assertEquals("'=HYPERLINK(\"x\")", CsvWriter.text("=HYPERLINK(\"x\")"));
+		assertEquals("'+1", CsvWriter.text("+1"));
+		assertEquals("'-1", CsvWriter.text("-1"));
+		assertEquals("'@SUM(A1)", CsvWriter.text("@SUM(A1)"));
+		assertEquals("'\tcmd", CsvWriter.text("\tcmd"));
+		assertEquals("'\rcmd", CsvWriter.text("\rcmd"));
+		assertEquals("Gibson Les Paul", CsvWriter.text("Gibson Les Paul"));
+		assertEquals("", CsvWriter.text(""));
+		assertNull(CsvWriter.text(null));
+	}
+
+	@Test
+	void prefixedFieldIsStillQuoted() throws IOException {
+		StringWriter out = new StringWriter();
+		new CsvWriter(out).write(CsvWriter.text("=1,2"));
+		assertEquals("\"'=1,2\"\r\n", out.toString());
+	}
+}
@@ -0,0 +1,172 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseCookie;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Проверки подписанной cookie гостевой корзины.
+ */
+class GuestCartServiceTest {
+
+	private static final String SECRET = "guest-cart-test-secret";
+
+	private GuestCartService service;
+
+	@BeforeEach
+	void setUp() {
+		service = service(SECRET);
+	}
+
+	@Test
+	void cookieRoundTripKeepsQuantitiesAndOrder() {
+		Map<Long, Integer> cart = new LinkedHashMap<>();
+		cart.put(30L, 2);
+		cart.put(1L, CartService.MAX_ITEM_QUANTITY);
+		cart.put(7L, 1);
+
+		ResponseCookie cookie = service.cookie(cart);
+		Map<Long, Integer> decoded = service.decode(cookie.getValue());
+
+		assertEquals(cart, decoded);
+		assertEquals(List.of(30L, 1L, 7L), new ArrayList<>(decoded.keySet()));
+		assertEquals(GuestCartService.COOKIE_NAME, cookie.getName());
+		assertEquals(Duration.ofDays(30), cookie.getMaxAge());
+		assertTrue(cookie.isHttpOnly());
+	}
+
+	@Test
+	void emptyCartProducesDeletingCookie() {
+		ResponseCookie cookie = service.cookie(Map.of());
+
+		assertEquals("", cookie.getValue());
+		assertEquals(Duration.ZERO, cookie.getMaxAge());
+		assertTrue(service.decode("").isEmpty());
+		assertTrue(service.decode(null).isEmpty());
+	}
+
+	@Test
+	void tamperedPayloadOrSignatureIsRejected() {
+		String value = service.cookie(Map.of(5L, 1)).getValue();
+		String payload = value.substring(0, value.indexOf('.'));
+		String signature = value.substring(value.indexOf('.') + 1);
+
+		String otherPayload = encode("5:999");
+		assertTrue(service.decode(otherPayload + "." + signature).isEmpty());
+
+		char flipped = signature.charAt(0) == 'A' ? 'B' : 'A';
+		assertTrue(service.decode(payload + "." + flipped + signature.substring(1)).isEmpty());
+
+		assertTrue(service("другой секрет").decode(value).isEmpty());
+		assertEquals(Map.of(5L, 1), service.decode(value));
+	}
+
+	@Test
+	void truncatedOrMalformedValueIsRejected() {
+		String value = service.cookie(Map.of(5L, 1, 6L, 2)).getValue();
+
+		assertTrue(service.decode(value.substring(0, value.length() - 3)).isEmpty());
+		assertTrue(service.decode(value.substring(0, value.indexOf('.'))).isEmpty());
+		assertTrue(service.decode(value.substring(0, value.indexOf('.') + 1)).isEmpty());
+		assertTrue(service.decode(value.substring(value.indexOf('.'))).isEmpty());
+		assertTrue(service.decode("!!!." + value.substring(value.indexOf('.') + 1)).isEmpty());
+
+		// Подпись верна, но содержимое не разбирается
+		for (String text : List.of("5-1", "a:1", "5:", ":1", ",5:1", "5:1:2", "99999999999999999999:1")) {
+			assertTrue(service.decode(signed(text)).isEmpty(), text);
+		}
+		assertEquals(Map.of(5L, 1), service.decode(signed("5:1")));
+	}
+
+	@Test
+	void overLimitItemCountIsRejected() {
+		assertEquals(GuestCartService.MAX_ITEMS, service.decode(signed(items(GuestCartService.MAX_ITEMS))).size());
+		assertTrue(service.decode(signed(items(GuestCartService.MAX_ITEMS + 1))).isEmpty());
+	}
+
+	@Test
+	void outOfRangeQuantityIsRejected() {
+		assertTrue(service.decode(signed("5:0")).isEmpty());
+		assertTrue(service.decode(signed("5:-1")).isEmpty());
+		assertTrue(service.decode(signed("5:" + (CartService.MAX_ITEM_QUANTITY + 1))).isEmpty());
+		assertTrue(service.decode(signed("5:1,6:" + (CartService.MAX_ITEM_QUANTITY + 1))).isEmpty());
+		assertEquals(Map.of(5L, CartService.MAX_ITEM_QUANTITY),
+				service.decode(signed("5:" + CartService.MAX_ITEM_QUANTITY)));
+	}
+
+	@Test
+	void addAndSetKeepCartWithinLimits() {
+		Map<Long, Integer> cart = new LinkedHashMap<>();
+		service.add(cart, 1L, CartService.MAX_ITEM_QUANTITY);
+		assertEquals(CartService.MAX_ITEM_QUANTITY, service.add(cart, 1L, 5).getQuantity());
+		assertThrows(IllegalArgumentException.class, () -> service.add(cart, 1L, 0));
+
+		for (long id = 2; id <= GuestCartService.MAX_ITEMS; id++) {
+			service.set(cart, id, 1);
+		}
+		assertThrows(IllegalArgumentException.class, () -> service.set(cart, 1000L, 1));
+		assertEquals(0, service.set(cart, 2L, 0).getQuantity());
+		assertEquals(1, service.set(cart, 1000L, 1).getQuantity());
+		assertEquals(GuestCartService.MAX_ITEMS, cart.size());
+	}
+
+	private static GuestCartService service(String secret) {
+		ProductService productService = mock(ProductService.class);
+		when(productService.getProductById(anyLong())).thenReturn(new Product());
+
+		GuestCartService service = new GuestCartService();
+		ReflectionTestUtils.setField(service, "secret", secret);
+		ReflectionTestUtils.setField(service, "maxAgeDays", 30);
+		ReflectionTestUtils.setField(service, "productService", productService);
+		service.init();
+		return service;
+	}
+
+	private static String items(int count) {
+		StringJoiner text = new StringJoiner(",");
+		for (int i = 1; i <= count; i++) {
+			text.add(i + ":1");
+		}
+		return text.toString();
+	}
+
+	private static String encode(String text) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Подписывает произвольное содержимое тем же секретом, что и сервис.
+	 */
+	private static String signed(String text) {
+		String payload = encode(text);
+		try {
+			Mac mac = Mac.getInstance("HmacSHA256");
+			mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+			byte[] signature = Arrays.copyOf(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)), 16);
+			return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CartOperation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Проверки ключей идемпотентности и отпечатков запросов.
+ */
+class IdempotencyServiceTest {
+
+	private static final String USER = "tester";
+
+	private IdempotencyService service;
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		service = new IdempotencyService();
+		ReflectionTestUtils.setField(service, "maxKeys", 100);
+		ReflectionTestUtils.setField(service, "ttlMillis", 60000L);
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		service.init();
+	}
+
+	@Test
+	void repeatedRequestGetsStoredResponse() {
+		ResponseEntity<?> first = service.execute(USER, "k1", request("POST", "/api/cart/add/5", "quantity=2"), null, this::ok);
+		ResponseEntity<?> second = service.execute(USER, "k1", request("POST", "/api/cart/add/5", "quantity=2"), null, this::ok);
+
+		assertSame(first, second);
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void reusedKeyWithDifferentRequestIsRejected() {
+		service.execute(USER, "k1", request("POST", "/api/cart/add/5", "quantity=2"), null, this::ok);
+
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+				service.execute(USER, "k1", request("POST", "/api/cart/add/5", "quantity=3"), null, this::ok).getStatusCode());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+				service.execute(USER, "k1", request("POST", "/api/cart/add/6", "quantity=2"), null, this::ok).getStatusCode());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+				service.execute(USER, "k1", request("PUT", "/api/cart/add/5", "quantity=2"), null, this::ok).getStatusCode());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY,
+				service.execute(USER, "k1", request("POST", "/api/cart/checkout", null), null, this::ok).getStatusCode());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void bodyIsPartOfFingerprint() {
+		List<CartOperation> operations = List.of(operation("add", 1L, 2));
+		service.execute(USER, "k1", request("PATCH", "/api/cart", null), operations, this::ok);
+
+		assertEquals(HttpStatus.OK, service.execute(USER, "k1", request("PATCH", "/api/cart", null),
+				List.of(operation("add", 1L, 2)), this::ok).getStatusCode());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, service.execute(USER, "k1", request("PATCH", "/api/cart", null),
+				List.of(operation("add", 1L, 3)), this::ok).getStatusCode());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void keysOfDifferentUsersDoNotMix() {
+		service.execute(USER, "k1", request("POST", "/api/cart/checkout", null), null, this::ok);
+		service.execute("other", "k1", request("POST", "/api/cart/add/5", null), null, this::ok);
+
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void requestInProgressGetsConflict() {
+		MockHttpServletRequest request = request("POST", "/api/cart/checkout", null);
+		ResponseEntity<?> nested = service.execute(USER, "k1", request, null,
+				() -> service.execute(USER, "k1", request, null, this::ok));
+
+		assertEquals(HttpStatus.CONFLICT, nested.getStatusCode());
+	}
+
+	@Test
+	void serverErrorsAreNotStoredAndMissingKeyAlwaysExecutes() {
+		MockHttpServletRequest request = request("POST", "/api/cart/checkout", null);
+		service.execute(USER, "k1", request, null, () -> {
+			calls.incrementAndGet();
+			return ResponseEntity.internalServerError().build();
+		});
+		service.execute(USER, "k1", request, null, this::ok);
+		service.execute(USER, null, request, null, this::ok);
+		service.execute(USER, null, request, null, this::ok);
+
+		assertEquals(4, calls.get());
+		assertEquals(HttpStatus.BAD_REQUEST, service.execute(USER, " ", request, null, this::ok).getStatusCode());
+	}
+
+	private ResponseEntity<?> ok() {
+		return ResponseEntity.ok("ответ " + calls.incrementAndGet());
+	}
+
+	private static MockHttpServletRequest request(String method, String uri, String query) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setQueryString(query);
+		return request;
+	}
+
+	private static CartOperation operation(String op, Long productId, Integer quantity) {
+		CartOperation operation = new CartOperation();
+		operation.setOp(op);
+		operation.setProductId(productId);
+		operation.setQuantity(quantity);
+		return operation;
+	}
+}
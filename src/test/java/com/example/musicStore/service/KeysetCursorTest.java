@@ -0,0 +1,75 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.CursorPage;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки кодирования курсора пагинации и формирования страниц.
+ */
+class KeysetCursorTest {
+
+	@Test
+	void roundTripKeepsKeyWithSeparatorsAndUnicode() {
+		KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor("name-asc", 42, "Гитара | Fender|x").encode(), "name-asc");
+
+		assertEquals("name-asc", cursor.getSort());
+		assertEquals(42, cursor.getId());
+		assertEquals("Гитара | Fender|x", cursor.getKey());
+	}
+
+	@Test
+	void roundTripWithoutKey() {
+		String token = new KeysetCursor("id", 7, null).encode();
+
+		assertTrue(token.matches("[A-Za-z0-9_-]+"), "курсор должен быть base64url без дополнения");
+		KeysetCursor cursor = KeysetCursor.decode(token, "id");
+		assertEquals(7, cursor.getId());
+		assertNull(cursor.getKey());
+	}
+
+	@Test
+	void rejectsCursorOfAnotherSort() {
+		String token = new KeysetCursor("price-asc", 1, "10.0").encode();
+
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(token, "price-desc"));
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("не base64!", "id"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("id"), "id"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encode("id|abc"), "id"));
+	}
+
+	@Test
+	void validateSizeAcceptsOnlyAllowedRange() {
+		KeysetCursor.validateSize(1);
+		KeysetCursor.validateSize(ProductService.MAX_PAGE_SIZE);
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.validateSize(0));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.validateSize(ProductService.MAX_PAGE_SIZE + 1));
+	}
+
+	@Test
+	void pageUsesExtraRowOnlyToDetectNextPage() {
+		CursorPage<Long> last = KeysetCursor.page(List.of(1L, 2L), 2, id -> new KeysetCursor("id", id, null));
+		assertEquals(List.of(1L, 2L), last.getContent());
+		assertNull(last.getNextCursor());
+
+		CursorPage<Long> first = KeysetCursor.page(List.of(1L, 2L, 3L), 2, id -> new KeysetCursor("id", id, null));
+		assertEquals(List.of(1L, 2L), first.getContent());
+		assertEquals(2, KeysetCursor.decode(first.getNextCursor(), "id").getId());
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,119 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.PriceBucket;
+import com.example.musicStore.model.PriceHistogram;
+import com.example.musicStore.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Проверки индекса цен каталога.
+ */
+class PriceBucketIndexTest {
+
+	private PriceBucketIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new PriceBucketIndex();
+		ReflectionTestUtils.setField(index, "boundaries", new double[]{0, 1000, 5000, 10000});
+		index.init();
+		index.rebuild(List.of(
+				product(1L, 500, "A"),
+				product(2L, 1000, "B"),
+				product(3L, 3000, "A"),
+				product(4L, 3000, null),
+				product(5L, 5000, "B"),
+				product(6L, 7000, "A"),
+				product(7L, 10000, null),
+				product(8L, 25000, "")));
+	}
+
+	@Test
+	void bucketOfUsesInclusiveLowerBoundaries() {
+		assertEquals(0, index.bucketOf(-5));
+		assertEquals(0, index.bucketOf(0));
+		assertEquals(0, index.bucketOf(999.99));
+		assertEquals(1, index.bucketOf(1000));
+		assertEquals(1, index.bucketOf(4999));
+		assertEquals(2, index.bucketOf(5000));
+		assertEquals(3, index.bucketOf(10000));
+		assertEquals(3, index.bucketOf(1e9));
+	}
+
+	@Test
+	void histogramCountsProductsPerBucket() {
+		PriceHistogram histogram = index.histogram(null, null, null);
+
+		assertEquals(List.of(1L, 3L, 2L, 2L), counts(histogram));
+		assertEquals(10000.0, histogram.getBuckets().get(2).getTo());
+		assertNull(histogram.getBuckets().get(3).getTo());
+		assertEquals(500.0, histogram.getMinPrice());
+		assertEquals(25000.0, histogram.getMaxPrice());
+		assertEquals(8, histogram.getTotal());
+		assertEquals(8, histogram.getRangeCount());
+	}
+
+	@Test
+	void countInRangeIsInclusiveWithinAndAcrossBuckets() {
+		assertEquals(3, rangeCount(null, 1000.0, 3000.0));
+		assertEquals(1, rangeCount(null, 5000.0, 5000.0));
+		assertEquals(5, rangeCount(null, 0.0, 5000.0));
+		assertEquals(6, rangeCount(null, 999.0, 10000.0));
+		assertEquals(3, rangeCount(null, 5001.0, 1e6));
+		assertEquals(8, rangeCount(null, -1.0, 30000.0));
+		assertEquals(2, rangeCount(null, null, 1000.0));
+		assertEquals(2, rangeCount(null, 10000.0, null));
+		assertEquals(0, rangeCount(null, 3001.0, 4999.0));
+		assertEquals(0, rangeCount(null, 5000.0, 1000.0));
+	}
+
+	@Test
+	void categoryHistogramUsesOnlyProductsOfCategory() {
+		assertEquals(List.of(1L, 1L, 1L, 0L), counts(index.histogram("A", null, null)));
+		assertEquals(2, rangeCount("A", 1000.0, null));
+		assertEquals(8, index.histogram("", null, null).getTotal());
+
+		PriceHistogram unknown = index.histogram("Нет такой", 0.0, 100.0);
+		assertEquals(0, unknown.getTotal());
+		assertEquals(0, unknown.getRangeCount());
+		assertNull(unknown.getMinPrice());
+		assertEquals(List.of(0L, 0L, 0L, 0L), counts(unknown));
+	}
+
+	@Test
+	void updateAndRemoveMoveCountsBetweenBuckets() {
+		index.update(product(6L, 100, "B"));
+		assertEquals(List.of(2L, 3L, 1L, 2L), counts(index.histogram(null, null, null)));
+		assertEquals(List.of(1L, 1L, 0L, 0L), counts(index.histogram("A", null, null)));
+		assertEquals(3, index.histogram("B", null, null).getTotal());
+
+		index.remove(2L);
+		index.remove(5L);
+		index.remove(6L);
+		index.remove(99L);
+		assertEquals(0, index.histogram("B", null, null).getTotal());
+		assertEquals(5, index.histogram(null, null, null).getTotal());
+		assertEquals(2, rangeCount(null, 3000.0, 3000.0));
+	}
+
+	private long rangeCount(String category, Double minPrice, Double maxPrice) {
+		return index.histogram(category, minPrice, maxPrice).getRangeCount();
+	}
+
+	private static List<Long> counts(PriceHistogram histogram) {
+		return histogram.getBuckets().stream().map(PriceBucket::getCount).toList();
+	}
+
+	private static Product product(Long id, double price, String category) {
+		Product product = new Product("Продукт " + id, price, null, category, null, null, true);
+		product.setId(id);
+		return product;
+	}
+}
@@ -0,0 +1,119 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки полнотекстового индекса каталога.
+ */
+class ProductSearchIndexTest {
+
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ProductSearchIndex();
+		index.rebuild(List.of(
+				product(1L, "Наушники Sony WH-1000XM4", "Sony", "Наушники", "Беспроводные, с шумоподавлением"),
+				product(2L, "Наушники Sennheiser HD 600", "Sennheiser", "Наушники", "Открытые студийные"),
+				product(3L, "Усилитель для наушников", "FiiO", "Усилители", "Подходит к наушникам Sony"),
+				product(4L, "Колонка Sony SRS-XB13", "Sony", "Колонки", "Портативная")));
+	}
+
+	@Test
+	void tokenizeNormalizesCaseAndYoAndSplitsOnNonWordCharacters() {
+		assertEquals(List.of("елка", "wh", "1000xm4", "sony"),
+				ProductSearchIndex.tokenize("Ёлка WH-1000XM4, sony SONY!"));
+		assertTrue(ProductSearchIndex.tokenize(null).isEmpty());
+		assertTrue(ProductSearchIndex.tokenize("  ,. ").isEmpty());
+	}
+
+	@Test
+	void allQueryWordsMustMatch() {
+		assertEquals(List.of(1L), ids("sony наушники"));
+		assertEquals(List.of(), ids("sennheiser колонка"));
+		assertEquals(List.of(), ids("несуществующее"));
+		assertEquals(List.of(), ids("  "));
+	}
+
+	@Test
+	void onlyLastWordMatchesAsPrefix() {
+		assertEquals(List.of(4L), ids("sony колон"));
+		assertEquals(List.of(), ids("колон sony"));
+		assertEquals(List.of(4L), ids("SRS-XB1"));
+	}
+
+	@Test
+	void nameMatchesRankAboveDescriptionMatches() {
+		List<Long> found = ids("sony");
+		assertEquals(3, found.size());
+		// Название и бренд весят больше описания, поэтому усилитель с Sony только в описании последний
+		assertEquals(3L, found.get(2));
+	}
+
+	@Test
+	void exactWordRanksAbovePrefixExpansion() {
+		index.update(product(5L, "Кабель", "Noname", "Кабели", null));
+		index.update(product(6L, "Кабельный органайзер", "Noname", "Аксессуары", null));
+
+		assertEquals(List.of(5L, 6L), ids("кабель"));
+	}
+
+	@Test
+	void updateReplacesIndexedTermsAndRemoveDropsProduct() {
+		index.update(product(4L, "Колонка JBL Go 3", "JBL", "Колонки", "Портативная"));
+
+		assertEquals(List.of(4L), ids("jbl"));
+		assertEquals(List.of(1L, 3L), sorted(ids("sony")));
+
+		index.remove(4L);
+		assertEquals(List.of(), ids("jbl"));
+		assertEquals(List.of(), ids("колонка"));
+
+		// Освобождённый внутренний номер используется повторно без следов прежнего продукта
+		index.update(product(7L, "Проигрыватель винила", "Audio-Technica", "Проигрыватели", null));
+		assertEquals(List.of(7L), ids("винила"));
+		assertEquals(List.of(), ids("jbl"));
+		index.remove(99L);
+		assertEquals(List.of(7L), ids("проигрыватель"));
+	}
+
+	@Test
+	void pagesAreSlicesOfTheRankedResultWithTotal() {
+		List<Long> all = ids("наушн");
+		assertEquals(3, all.size());
+
+		ProductSearchIndex.SearchResult first = index.search("наушн", 0, 2);
+		ProductSearchIndex.SearchResult second = index.search("наушн", 2, 2);
+		ProductSearchIndex.SearchResult beyond = index.search("наушн", 10, 2);
+
+		assertEquals(all.subList(0, 2), first.getIds());
+		assertEquals(all.subList(2, 3), second.getIds());
+		assertEquals(List.of(), beyond.getIds());
+		assertEquals(3, first.getTotal());
+		assertEquals(3, beyond.getTotal());
+	}
+
+	private List<Long> ids(String query) {
+		return index.search(query, 0, 100).getIds();
+	}
+
+	private static List<Long> sorted(List<Long> ids) {
+		List<Long> copy = new ArrayList<>(ids);
+		copy.sort(null);
+		return copy;
+	}
+
+	private static Product product(Long id, String name, String brand, String category, String description) {
+		Product product = new Product(name, 100, null, category, description, brand, true);
+		product.setId(id);
+		return product;
+	}
+}
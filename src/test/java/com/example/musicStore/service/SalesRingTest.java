@@ -0,0 +1,143 @@
+package com.example.musicStore.service;
+
+import com.example.musicStore.model.ProductSales;
+import com.example.musicStore.model.SalesBucket;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки кольцевого временного ряда продаж.
+ */
+class SalesRingTest {
+
+	private static final LocalDateTime T = LocalDateTime.of(2026, 10, 18, 12, 0);
+
+	@Test
+	void seriesReturnsLastBucketsOldestFirstWithEmptyGaps() {
+		SalesRing ring = new SalesRing(60, 5, false);
+		ring.add(T, 1, 100);
+		ring.add(T.plusSeconds(59), 1, 50);
+		ring.add(T.plusMinutes(2).plusSeconds(1), 2, 300);
+
+		List<SalesBucket> series = ring.series(T.plusMinutes(2).plusSeconds(30), 3);
+
+		assertEquals(List.of(T, T.plusMinutes(1), T.plusMinutes(2)), series.stream().map(SalesBucket::getStart).toList());
+		assertEquals(List.of(2L, 0L, 2L), series.stream().map(SalesBucket::getOrderCount).toList());
+		assertEquals(List.of(150.0, 0.0, 300.0), series.stream().map(SalesBucket::getRevenue).toList());
+	}
+
+	@Test
+	void totalSumsWindowEndingAtCurrentBucket() {
+		SalesRing ring = new SalesRing(60, 5, false);
+		ring.add(T, 1, 100);
+		ring.add(T.plusMinutes(1), 1, 50);
+		ring.add(T.plusMinutes(2), 2, 300);
+
+		SalesBucket all = ring.total(T.plusMinutes(2), 3);
+		assertEquals(T, all.getStart());
+		assertEquals(4, all.getOrderCount());
+		assertEquals(450.0, all.getRevenue());
+
+		SalesBucket last = ring.total(T.plusMinutes(2), 2);
+		assertEquals(T.plusMinutes(1), last.getStart());
+		assertEquals(3, last.getOrderCount());
+
+		// Окно, сдвинутое вперёд, уже не видит старых интервалов
+		assertEquals(2, ring.total(T.plusMinutes(4), 3).getOrderCount());
+	}
+
+	@Test
+	void newerBucketReplacesSlotAndStaleWritesAreDropped() {
+		SalesRing ring = new SalesRing(60, 5, true);
+		ring.add(T, 3, 300);
+		ring.addProduct(T, 1L, 3, 300);
+
+		// Интервал T + 5 минут попадает в ту же ячейку и вытесняет интервал T
+		ring.add(T.plusMinutes(5), 1, 10);
+		assertEquals(1, ring.total(T.plusMinutes(5), 1).getOrderCount());
+		assertEquals(0, ring.total(T, 1).getOrderCount());
+		assertTrue(ring.topProducts(T, 1, 10).isEmpty());
+
+		// Запоздавшая запись в вытесненный интервал отбрасывается и не портит новый
+		ring.add(T, 7, 700);
+		ring.addProduct(T, 2L, 7, 700);
+		assertEquals(1, ring.total(T.plusMinutes(5), 1).getOrderCount());
+		assertEquals(10.0, ring.total(T.plusMinutes(5), 1).getRevenue());
+		assertEquals(0, ring.total(T, 1).getOrderCount());
+		assertTrue(ring.topProducts(T.plusMinutes(5), 1, 10).isEmpty());
+	}
+
+	@Test
+	void topProductsRanksByQuantityThenRevenueThenIdWithinWindow() {
+		SalesRing ring = new SalesRing(60, 10, true);
+		ring.addProduct(T, 1L, 10, 100);
+		ring.addProduct(T.plusMinutes(1), 2L, 4, 400);
+		ring.addProduct(T.plusMinutes(2), 2L, 1, 100);
+		ring.addProduct(T.plusMinutes(2), 3L, 5, 50);
+		ring.addProduct(T.plusMinutes(2), 4L, 5, 50);
+		ring.addProduct(T.plusMinutes(2), 5L, 1, 10);
+
+		List<ProductSales> window = ring.topProducts(T.plusMinutes(2), 2, 3);
+		assertEquals(List.of(2L, 3L, 4L), window.stream().map(ProductSales::getProductId).toList());
+		assertEquals(5, window.get(0).getQuantity());
+		assertEquals(500.0, window.get(0).getRevenue());
+
+		List<ProductSales> wider = ring.topProducts(T.plusMinutes(2), 3, 10);
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L), wider.stream().map(ProductSales::getProductId).toList());
+		assertTrue(ring.topProducts(T.plusMinutes(2), 3, 0).isEmpty());
+	}
+
+	@Test
+	void ringWithoutProductsIgnoresProductSales() {
+		SalesRing ring = new SalesRing(86400, 3, false);
+		ring.addProduct(T, 1L, 5, 50);
+
+		assertTrue(ring.topProducts(T, 1, 10).isEmpty());
+		assertEquals(3, ring.capacity());
+		assertThrows(IllegalArgumentException.class, () -> new SalesRing(60, 0, false));
+		assertThrows(IllegalArgumentException.class, () -> new SalesRing(0, 10, false));
+	}
+
+	@Test
+	void parallelWritesIntoNewBucketAreAllCounted() throws Exception {
+		SalesRing ring = new SalesRing(60, 5, true);
+		int threads = 16;
+		int perThread = 1000;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		try {
+			for (int i = 0; i < threads; i++) {
+				futures.add(pool.submit(() -> {
+					start.await();
+					for (int j = 0; j < perThread; j++) {
+						ring.add(T, 1, 1);
+						ring.addProduct(T, 1L, 1, 1);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(threads * perThread, ring.total(T, 1).getOrderCount());
+		assertEquals(threads * perThread, ring.topProducts(T, 1, 1).get(0).getQuantity());
+	}
+}